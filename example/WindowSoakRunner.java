@@ -0,0 +1,83 @@
+
+import br.com.fandrauss.fx.gui.WindowControllerFx;
+import br.com.fandrauss.fx.gui.WindowSoakHarness;
+import java.util.List;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.stage.Stage;
+
+/**
+ * Command line runner of the soak harness, exits with status 1 if some of the
+ * controllers leaks
+ *
+ * <pre>
+ * java -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw \
+ *     -cp app.jar:openjfx-monocle.jar WindowSoakRunner \
+ *     com.example.MyController com.example.OtherController
+ * </pre>
+ *
+ * The controllers need a default constructor. When Monocle is on the
+ * classpath and no platform is defined it runs headless
+ *
+ * @author Fernando Andrauss
+ */
+public class WindowSoakRunner extends Application {
+
+    @Override
+    public void start(Stage primaryStage) {
+        Platform.setImplicitExit(false);
+        List<String> classes = getParameters().getRaw();
+
+        Thread runner = new Thread(() -> {
+            boolean leaking = false;
+
+            try {
+                WindowSoakHarness harness = new WindowSoakHarness();
+
+                for (String className : classes) {
+                    Class<? extends WindowControllerFx> type = Class.forName(className).asSubclass(WindowControllerFx.class);
+
+                    for (WindowSoakHarness.Result result : harness.run(() -> newInstance(type))) {
+                        System.out.println(result);
+                        leaking |= result.isLeaking();
+                    }
+                }
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                leaking = true;
+            }
+
+            System.exit(leaking ? 1 : 0);
+        }, "window-soak-runner");
+
+        runner.start();
+    }
+
+    private static WindowControllerFx newInstance(Class<? extends WindowControllerFx> type) {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new RuntimeException("Failed to create " + type.getName(), ex);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("glass.platform") == null && isMonocleAvailable()) {
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+        }
+
+        launch(args);
+    }
+
+    private static boolean isMonocleAvailable() {
+        try {
+            Class.forName("com.sun.glass.ui.monocle.MonoclePlatformFactory");
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+}
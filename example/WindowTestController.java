@@ -139,7 +139,7 @@ public class WindowTestController extends WindowControllerFx {
 
     @FXML
     private void CloseWindow() {
-        getWindow().close();
+        close(null);
     }
 
 }
@@ -0,0 +1,364 @@
+package br.com.fandrauss.fx.gui;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+
+/**
+ * Optional watchdog of the FX Application Thread. A heartbeat is posted to the
+ * FX thread and, when it is not answered within the threshold, the FX thread
+ * stack is sampled until the stall ends. Each stall is attributed to the
+ * controller whose code is on the stack or whose window was loading, and the
+ * reports are kept in a bounded ring buffer
+ *
+ * <pre>
+ * FxStallWatchdog.start(200, 20, 100);
+ * ...
+ * FxStallWatchdog.get().getReports().forEach(System.out::println);
+ * </pre>
+ *
+ * @author Fernando Andrauss
+ */
+public final class FxStallWatchdog {
+
+    private static final String UNKNOWN = "unknown";
+
+    private static volatile FxStallWatchdog instance;
+
+    /**
+     * Controller class whose window is being loaded on the FX thread
+     */
+    private static volatile Class<?> loading;
+
+    private final long thresholdNanos;
+    private final long sampleMillis;
+    private final int capacity;
+    private final Deque<StallReport> reports;
+    private final Map<String, Boolean> controllerClasses = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    private volatile Thread fxThread;
+    private volatile boolean beatPending = false;
+    private volatile long beatPostedAt;
+    private volatile long beatAnsweredAt;
+    private Stall current;
+
+    /**
+     * Report of one stall of the FX thread
+     */
+    public static final class StallReport {
+
+        private final String controller;
+        private final long startTime;
+        private final long durationMillis;
+        private final int samples;
+        private final String hotFrame;
+
+        private StallReport(String controller, long startTime, long durationMillis, int samples, String hotFrame) {
+            this.controller = controller;
+            this.startTime = startTime;
+            this.durationMillis = durationMillis;
+            this.samples = samples;
+            this.hotFrame = hotFrame;
+        }
+
+        /**
+         * Get the controller class the stall is attributed to
+         *
+         * @return class name or "unknown"
+         */
+        public String getController() {
+            return controller;
+        }
+
+        /**
+         * Get the stall start time
+         *
+         * @return time in milliseconds, see System.currentTimeMillis
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * Get the stall duration
+         *
+         * @return
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        /**
+         * Get the number of stack samples taken during the stall
+         *
+         * @return
+         */
+        public int getSamples() {
+            return samples;
+        }
+
+        /**
+         * Get the frame found most often in the samples, the first one out of
+         * the JDK and JavaFX
+         *
+         * @return
+         */
+        public String getHotFrame() {
+            return hotFrame;
+        }
+
+        @Override
+        public String toString() {
+            return "Stall of " + durationMillis + "ms in " + controller + " at " + hotFrame + " (" + samples + " samples)";
+        }
+    }
+
+    /**
+     * Samples of the stall in progress
+     */
+    private static final class Stall {
+
+        private final long postedAt;
+        private final long startTime = System.currentTimeMillis();
+        private final Map<String, Integer> controllers = new HashMap<>();
+        private final Map<String, Integer> frames = new HashMap<>();
+        private int samples = 0;
+
+        private Stall(long postedAt) {
+            this.postedAt = postedAt;
+        }
+    }
+
+    private FxStallWatchdog(long thresholdMillis, long sampleMillis, int capacity) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleMillis = sampleMillis;
+        this.capacity = capacity;
+        this.reports = new ArrayDeque<>(capacity);
+        this.executor = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread t = new Thread(r, "fx-stall-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts the watchdog, a running watchdog is stopped before
+     *
+     * @param thresholdMillis minimum FX thread stall to be reported
+     * @param sampleMillis interval of the heartbeat and of the stack samples
+     * @param capacity maximum number of reports kept
+     * @return
+     */
+    public static synchronized FxStallWatchdog start(long thresholdMillis, long sampleMillis, int capacity) {
+        if (instance != null) {
+            instance.stop();
+        }
+
+        instance = new FxStallWatchdog(thresholdMillis, sampleMillis, capacity);
+        instance.executor.scheduleWithFixedDelay(instance::tick, 0, sampleMillis, TimeUnit.MILLISECONDS);
+        return instance;
+    }
+
+    /**
+     * Get the running watchdog
+     *
+     * @return watchdog or null if not started
+     */
+    public static FxStallWatchdog get() {
+        return instance;
+    }
+
+    /**
+     * Stops the watchdog, the reports are kept
+     */
+    public void stop() {
+        executor.shutdownNow();
+
+        synchronized (FxStallWatchdog.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+
+    /**
+     * Get the stall reports, the oldest first
+     *
+     * @return
+     */
+    public List<StallReport> getReports() {
+        synchronized (reports) {
+            return new ArrayList<>(reports);
+        }
+    }
+
+    /**
+     * Get the total stall time of the reports by controller
+     *
+     * @return stall time in milliseconds by controller class name
+     */
+    public Map<String, Long> getStallTimeByController() {
+        Map<String, Long> total = new LinkedHashMap<>();
+
+        for (StallReport report : getReports()) {
+            total.merge(report.getController(), report.getDurationMillis(), Long::sum);
+        }
+
+        return total;
+    }
+
+    /**
+     * Marks the controller class whose window is being loaded, returns the
+     * previous one to be restored
+     *
+     * @param controller
+     * @return
+     */
+    static Class<?> enterLoading(Class<?> controller) {
+        Class<?> previous = loading;
+        loading = controller;
+        return previous;
+    }
+
+    /**
+     * Restores the loading mark
+     *
+     * @param previous value returned by enterLoading
+     */
+    static void exitLoading(Class<?> previous) {
+        loading = previous;
+    }
+
+    private void tick() {
+        try {
+            if (fxThread == null) {
+                Platform.runLater(() -> fxThread = Thread.currentThread());
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            if (!beatPending) {
+                if (current != null) {
+                    finishStall();
+                }
+
+                beatPending = true;
+                beatPostedAt = now;
+                Platform.runLater(() -> {
+                    beatAnsweredAt = System.nanoTime();
+                    beatPending = false;
+                });
+            } else if (now - beatPostedAt > thresholdNanos) {
+                if (current == null) {
+                    current = new Stall(beatPostedAt);
+                }
+                sample();
+            }
+        } catch (RuntimeException ex) {
+            // Never let the scheduler die, the toolkit may be exiting
+        }
+    }
+
+    private void sample() {
+        StackTraceElement[] stack = fxThread.getStackTrace();
+
+        String controller = null;
+        String frame = null;
+
+        for (StackTraceElement element : stack) {
+            if (frame == null && !isPlatformFrame(element.getClassName())) {
+                frame = element.toString();
+            }
+
+            if (controller == null && isControllerClass(element.getClassName())) {
+                controller = outerClassName(element.getClassName());
+            }
+        }
+
+        if (controller == null) {
+            Class<?> loadingClass = loading;
+            controller = loadingClass != null ? loadingClass.getName() : UNKNOWN;
+        }
+
+        if (frame == null && stack.length > 0) {
+            frame = stack[0].toString();
+        }
+
+        current.samples++;
+        current.controllers.merge(controller, 1, Integer::sum);
+
+        if (frame != null) {
+            current.frames.merge(frame, 1, Integer::sum);
+        }
+    }
+
+    private void finishStall() {
+        Stall stall = current;
+        current = null;
+
+        long duration = TimeUnit.NANOSECONDS.toMillis(beatAnsweredAt - stall.postedAt);
+        StallReport report = new StallReport(mostFrequent(stall.controllers), stall.startTime, duration, stall.samples, mostFrequent(stall.frames));
+
+        synchronized (reports) {
+            if (reports.size() == capacity) {
+                reports.removeFirst();
+            }
+            reports.addLast(report);
+        }
+    }
+
+    private boolean isControllerClass(String className) {
+        if (className.equals(WindowControllerFx.class.getName())) {
+            return false;
+        }
+
+        return controllerClasses.computeIfAbsent(className, (name) -> {
+            try {
+                ClassLoader loader = fxThread.getContextClassLoader();
+                Class<?> type = Class.forName(outerClassName(name), false, loader);
+                Class<?> inner = Class.forName(name, false, loader);
+                return WindowControllerFx.class.isAssignableFrom(type) || WindowControllerFx.class.isAssignableFrom(inner);
+            } catch (ClassNotFoundException | LinkageError ex) {
+                return false;
+            }
+        });
+    }
+
+    private static String outerClassName(String className) {
+        int index = className.indexOf('$');
+        return index > 0 ? className.substring(0, index) : className;
+    }
+
+    private static boolean isPlatformFrame(String className) {
+        return className.startsWith("java.")
+                || className.startsWith("javax.")
+                || className.startsWith("javafx.")
+                || className.startsWith("com.sun.")
+                || className.startsWith("sun.")
+                || className.startsWith("jdk.");
+    }
+
+    private static String mostFrequent(Map<String, Integer> counts) {
+        return counts.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(UNKNOWN);
+    }
+
+    @Override
+    public String toString() {
+        return "FxStallWatchdog[threshold=" + TimeUnit.NANOSECONDS.toMillis(thresholdNanos) + "ms, sample=" + sampleMillis + "ms, reports=" + getReports().size() + "]";
+    }
+
+}
@@ -0,0 +1,246 @@
+package br.com.fandrauss.fx.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.beans.property.StringProperty;
+import javafx.geometry.Pos;
+import javafx.scene.Cursor;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.stage.Modality;
+import javafx.stage.StageStyle;
+
+/**
+ * Lightweight window rendered inside a WindowDesktop, it has a title bar to
+ * move and close it and a grip to resize it
+ *
+ * @author Fernando Andrauss
+ * @see WindowDesktop
+ */
+public class InternalWindow extends BorderPane {
+
+    private static final double GRIP_SIZE = 8;
+
+    private final WindowControllerFx controller;
+    private final Modality modality;
+    private final List<Runnable> closeHandlers = new ArrayList<>();
+    private boolean closed = false;
+
+    private double dragX;
+    private double dragY;
+
+    private boolean maximized = false;
+    private double restoreX;
+    private double restoreY;
+    private double restoreWidth;
+    private double restoreHeight;
+
+    InternalWindow(WindowControllerFx controller, WindowSpec spec, Region content) {
+        this.controller = controller;
+        this.modality = spec.getModality();
+
+        getStyleClass().add("internal-window");
+        setCenter(content);
+
+        boolean decorated = spec.getStyle() == StageStyle.DECORATED || spec.getStyle() == StageStyle.UTILITY;
+
+        if (decorated) {
+            setTop(createTitleBar(controller.titleProperty(), spec.getIcons()));
+            setStyle("-fx-background-color: -fx-background; -fx-border-color: derive(-fx-base, -30%); "
+                    + "-fx-effect: dropshadow(gaussian, rgba(0, 0, 0, 0.3), 8, 0, 0, 2);");
+        } else if (spec.isTransparent()) {
+            setStyle("-fx-background-color: transparent;");
+        }
+
+        setBottom(createResizeGrip());
+
+        // Same limits of a stage, not defined keeps the computed size
+        if (spec.getMinWidth() > 0) {
+            setMinWidth(spec.getMinWidth());
+        }
+
+        if (spec.getMinHeight() > 0) {
+            setMinHeight(spec.getMinHeight());
+        }
+
+        if (spec.getMaxWidth() < Double.MAX_VALUE) {
+            setMaxWidth(spec.getMaxWidth());
+        }
+
+        if (spec.getMaxHeight() < Double.MAX_VALUE) {
+            setMaxHeight(spec.getMaxHeight());
+        }
+
+        // Any click brings the window to the front
+        addEventFilter(MouseEvent.MOUSE_PRESSED, (evt) -> toFront());
+    }
+
+    /**
+     * Get the controller of this window
+     *
+     * @return
+     */
+    public WindowControllerFx getController() {
+        return controller;
+    }
+
+    /**
+     * Get the emulated modality of this window
+     *
+     * @return
+     */
+    public Modality getModality() {
+        return modality;
+    }
+
+    /**
+     * Check if this window was closed
+     *
+     * @return
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Adds a handler called when this window is closed
+     *
+     * @param handler
+     */
+    public void addOnClosed(Runnable handler) {
+        closeHandlers.add(handler);
+    }
+
+    /**
+     * Resize this window, the size is kept between the minimum and maximum
+     * size. Ignored while maximized
+     *
+     * @param width
+     * @param height
+     */
+    public void resizeWindow(double width, double height) {
+        if (maximized) {
+            return;
+        }
+
+        // The desktop pane lays out its children at the preferred size
+        setPrefSize(width, height);
+        autosize();
+    }
+
+    /**
+     * Check if this window fills the desktop
+     *
+     * @return
+     */
+    public boolean isMaximized() {
+        return maximized;
+    }
+
+    /**
+     * Makes this window fill the desktop, or restores its previous bounds
+     *
+     * @param value
+     */
+    public void setMaximized(boolean value) {
+        if (value == maximized || !(getParent() instanceof Region)) {
+            return;
+        }
+
+        Region desktopPane = (Region) getParent();
+
+        if (value) {
+            restoreX = getLayoutX();
+            restoreY = getLayoutY();
+            restoreWidth = getPrefWidth();
+            restoreHeight = getPrefHeight();
+
+            relocate(0, 0);
+            prefWidthProperty().bind(desktopPane.widthProperty());
+            prefHeightProperty().bind(desktopPane.heightProperty());
+        } else {
+            prefWidthProperty().unbind();
+            prefHeightProperty().unbind();
+            setPrefSize(restoreWidth, restoreHeight);
+            relocate(restoreX, restoreY);
+        }
+
+        maximized = value;
+        autosize();
+    }
+
+    /**
+     * Close this window and remove it from the desktop
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        for (Runnable handler : new ArrayList<>(closeHandlers)) {
+            handler.run();
+        }
+    }
+
+    private HBox createTitleBar(StringProperty title, List<Image> icons) {
+        Label label = new Label();
+        label.textProperty().bind(title);
+        label.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(label, Priority.ALWAYS);
+
+        Button close = new Button("\u00D7");
+        close.setFocusTraversable(false);
+        close.setOnAction((evt) -> close());
+
+        HBox bar = new HBox(6, label, close);
+        bar.getStyleClass().add("title-bar");
+        bar.setAlignment(Pos.CENTER_LEFT);
+        bar.setStyle("-fx-padding: 2 2 2 6; -fx-background-color: derive(-fx-base, -10%);");
+
+        if (!icons.isEmpty()) {
+            ImageView icon = new ImageView(icons.get(0));
+            icon.setFitWidth(16);
+            icon.setFitHeight(16);
+            icon.setPreserveRatio(true);
+            bar.getChildren().add(0, icon);
+        }
+
+        bar.setOnMousePressed((evt) -> {
+            dragX = evt.getSceneX() - getLayoutX();
+            dragY = evt.getSceneY() - getLayoutY();
+        });
+
+        bar.setOnMouseDragged((evt) -> {
+            if (maximized) {
+                return;
+            }
+
+            relocate(Math.max(0, evt.getSceneX() - dragX), Math.max(0, evt.getSceneY() - dragY));
+        });
+
+        return bar;
+    }
+
+    private Region createResizeGrip() {
+        Region grip = new Region();
+        grip.setPrefHeight(GRIP_SIZE);
+        grip.setMinHeight(GRIP_SIZE);
+        grip.setCursor(Cursor.SE_RESIZE);
+
+        grip.setOnMouseDragged((evt) -> {
+            resizeWindow(evt.getSceneX() - getLayoutX(), evt.getSceneY() - getLayoutY());
+        });
+
+        return grip;
+    }
+
+}
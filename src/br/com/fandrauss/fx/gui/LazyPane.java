@@ -0,0 +1,267 @@
+package br.com.fandrauss.fx.gui;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.beans.InvalidationListener;
+import javafx.beans.NamedArg;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+
+/**
+ * Section of a view loaded from its own FXML only when it first becomes
+ * visible, until then a lightweight placeholder is shown. Useful for tabs,
+ * collapsed TitledPanes and accordions of large views
+ *
+ * <pre>
+ * &lt;Tab text="Orders"&gt;
+ *     &lt;content&gt;
+ *         &lt;LazyPane source="/view/orders.fxml"/&gt;
+ *     &lt;/content&gt;
+ * &lt;/Tab&gt;
+ * </pre>
+ *
+ * The section is loaded with the controller declared on its FXML. When the
+ * section belongs to a WindowControllerFx view the owner is notified by
+ * onLazyLoad, and in progressive loading mode the owner loads the visible
+ * sections one per pulse
+ *
+ * @author Fernando Andrauss
+ * @see WindowControllerFx#setProgressiveLoading(boolean)
+ */
+public class LazyPane extends StackPane {
+
+    private final StringProperty source = new SimpleStringProperty(this, "source");
+    private final ObjectProperty<Node> placeholder = new SimpleObjectProperty<>(this, "placeholder");
+    private final List<Node> watched = new ArrayList<>();
+    private final InvalidationListener visibilityListener = (o) -> checkVisible();
+
+    private Parent content;
+    private Object controller;
+    private boolean requested = false;
+
+    public LazyPane() {
+        getStyleClass().add("lazy-pane");
+
+        placeholder.addListener((v, o, n) -> {
+            if (content == null) {
+                getChildren().setAll(n != null ? n : new Region());
+            }
+        });
+        setPlaceholder(new Region());
+
+        sceneProperty().addListener((v, o, n) -> watchAncestors());
+    }
+
+    public LazyPane(@NamedArg(value = "source") String source) {
+        this();
+        setSource(source);
+    }
+
+    /**
+     * Get the FXML source of this section
+     *
+     * @return
+     */
+    public String getSource() {
+        return source.get();
+    }
+
+    /**
+     * Defines the FXML source of this section, resolved like getFXML
+     *
+     * @param value
+     */
+    public void setSource(String value) {
+        source.set(value);
+    }
+
+    public StringProperty sourceProperty() {
+        return source;
+    }
+
+    /**
+     * Get the node shown until the section is loaded
+     *
+     * @return
+     */
+    public Node getPlaceholder() {
+        return placeholder.get();
+    }
+
+    /**
+     * Defines the node shown until the section is loaded
+     *
+     * @param value
+     */
+    public void setPlaceholder(Node value) {
+        placeholder.set(value);
+    }
+
+    public ObjectProperty<Node> placeholderProperty() {
+        return placeholder;
+    }
+
+    /**
+     * Get the loaded content
+     *
+     * @return content or null if not loaded yet
+     */
+    public Parent getContent() {
+        return content;
+    }
+
+    /**
+     * Get the controller declared on the section FXML
+     *
+     * @return controller or null if not loaded yet or not declared
+     */
+    public Object getController() {
+        return controller;
+    }
+
+    /**
+     * Check if the section is loaded
+     *
+     * @return
+     */
+    public boolean isLoaded() {
+        return content != null;
+    }
+
+    /**
+     * Loads the section now, regardless of its visibility. Nothing is done if
+     * already loaded
+     *
+     * @throws RuntimeException if the FXML can not be loaded
+     */
+    public void load() {
+        if (content != null) {
+            return;
+        }
+
+        requested = true;
+        unwatchAncestors();
+
+        WindowControllerFx owner = findOwner();
+
+        try {
+            FXMLLoader loader = new FXMLLoader(resolveSource(owner));
+            content = loader.load();
+            controller = loader.getController();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to load lazy section " + getSource(), ex);
+        }
+
+        getChildren().setAll(content);
+
+        if (owner != null) {
+            owner.onLazyLoad(this);
+        }
+    }
+
+    /**
+     * Drops a pending load request of the progressive loading, the section
+     * is requested again when it is visible
+     */
+    void cancelRequest() {
+        if (content == null) {
+            requested = false;
+            watchAncestors();
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        checkVisible();
+        super.layoutChildren();
+    }
+
+    /**
+     * Requests the load when this section and all its ancestors are visible
+     */
+    private void checkVisible() {
+        if (requested || getScene() == null) {
+            return;
+        }
+
+        for (Node node = this; node != null; node = node.getParent()) {
+            if (!node.isVisible()) {
+                return;
+            }
+        }
+
+        requested = true;
+        unwatchAncestors();
+
+        WindowControllerFx owner = findOwner();
+
+        if (owner != null && owner.isProgressiveLoading()) {
+            owner.enqueueLazyLoad(this);
+        } else {
+            load();
+        }
+    }
+
+    /**
+     * Listens the visibility of the ancestors, tab and titled pane skins only
+     * change the visibility of the content container
+     */
+    private void watchAncestors() {
+        unwatchAncestors();
+
+        if (requested || getScene() == null) {
+            return;
+        }
+
+        for (Node node = this; node != null; node = node.getParent()) {
+            node.visibleProperty().addListener(visibilityListener);
+            watched.add(node);
+        }
+    }
+
+    private void unwatchAncestors() {
+        for (Node node : watched) {
+            node.visibleProperty().removeListener(visibilityListener);
+        }
+        watched.clear();
+    }
+
+    /**
+     * Find the controller of the window that contains this section
+     *
+     * @return controller or null if not inside a WindowControllerFx view
+     */
+    private WindowControllerFx findOwner() {
+        for (Node node = this; node != null; node = node.getParent()) {
+            Object owner = node.getProperties().get(WindowControllerFx.class);
+
+            if (owner instanceof WindowControllerFx) {
+                return (WindowControllerFx) owner;
+            }
+        }
+        return null;
+    }
+
+    private URL resolveSource(WindowControllerFx owner) {
+        if (getSource() == null) {
+            throw new RuntimeException("The lazy section source is not defined");
+        }
+
+        URL url = owner != null ? owner.getClass().getResource(getSource()) : LazyPane.class.getResource(getSource());
+
+        if (url == null) {
+            throw new RuntimeException("FXML resource not found: " + getSource());
+        }
+
+        return url;
+    }
+
+}
@@ -0,0 +1,360 @@
+package br.com.fandrauss.fx.gui;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.stage.Modality;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+import javafx.util.Duration;
+
+/**
+ * Toast notifications shown on a small fixed pool of transparent stages. The
+ * notifications are queued and shown at a limited rate, duplicates are
+ * coalesced with a counter and the visible toasts are stacked on the bottom
+ * right corner of the screen. No stage is created per notification
+ *
+ * <pre>
+ * NotificationManager notifications = new NotificationManager(5, 4, Duration.seconds(4));
+ * notifications.post("Alert", "Disk almost full");
+ * </pre>
+ *
+ * Hiding a stage destroys its native window, so during a burst the pooled
+ * stages stay showing and a free toast is only made invisible and moved off
+ * the screen. The pool is hidden when it is idle for a while and when the
+ * owner window is hidden, so it does not keep the application running after
+ * its last window closes. Call dispose to hide it right away
+ *
+ * @author Fernando Andrauss
+ */
+public class NotificationManager {
+
+    private static final double GAP = 8;
+    private static final double WIDTH = 320;
+    private static final int MAX_QUEUED = 1000;
+    private static final double OFF_SCREEN = -32000;
+    private static final Duration IDLE_RELEASE = Duration.seconds(10);
+
+    private final int poolSize;
+    private final Duration displayTime;
+    private final Window owner;
+    private final List<Toast> pool = new ArrayList<>();
+    private final List<Toast> visible = new ArrayList<>();
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> queuedByKey = new HashMap<>();
+    private final Timeline dispatcher;
+    private final PauseTransition idle = new PauseTransition(IDLE_RELEASE);
+
+    /**
+     * Notification waiting for a free toast
+     */
+    private static final class Pending {
+
+        private final String key;
+        private final String title;
+        private final String message;
+        private int count = 1;
+
+        private Pending(String key, String title, String message) {
+            this.key = key;
+            this.title = title;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Pooled stage showing one notification at a time
+     */
+    private final class Toast {
+
+        private final Stage stage;
+        private final Label title = new Label();
+        private final Label message = new Label();
+        private final PauseTransition timer = new PauseTransition();
+        private String key;
+        private int count;
+
+        private Toast() {
+            title.setStyle("-fx-font-weight: bold; -fx-text-fill: white;");
+            message.setStyle("-fx-text-fill: white;");
+            message.setWrapText(true);
+
+            VBox content = new VBox(4, title, message);
+            content.getStyleClass().add("toast");
+            content.setPrefWidth(WIDTH);
+            content.setStyle("-fx-padding: 10 14; -fx-background-color: rgba(40, 40, 40, 0.9); -fx-background-radius: 6;");
+            content.setOnMouseClicked((evt) -> dismiss(this));
+
+            stage = WindowControllerFxUtils.createStageFromContent(owner, content, null, StageStyle.TRANSPARENT, Modality.NONE);
+            stage.getScene().setFill(Color.TRANSPARENT);
+            stage.setAlwaysOnTop(true);
+            park();
+
+            timer.setOnFinished((evt) -> dismiss(this));
+        }
+
+        private void show(Pending pending) {
+            key = pending.key;
+            count = pending.count;
+            title.setText(pending.title);
+            updateMessage(pending.message);
+
+            // The native window is created only on the first use of this toast
+            if (!stage.isShowing()) {
+                stage.show();
+            }
+
+            stage.sizeToScene();
+            stage.setOpacity(1);
+            restartTimer();
+        }
+
+        /**
+         * Makes the toast invisible without hiding the stage
+         */
+        private void park() {
+            stage.setOpacity(0);
+            stage.setX(OFF_SCREEN);
+            stage.setY(OFF_SCREEN);
+        }
+
+        private void coalesce(int more, String text) {
+            count += more;
+            updateMessage(text);
+            restartTimer();
+        }
+
+        private void updateMessage(String text) {
+            message.setText(count > 1 ? text + " (x" + count + ")" : text);
+        }
+
+        private void restartTimer() {
+            timer.stop();
+            timer.setDuration(displayTime);
+            timer.playFromStart();
+        }
+    }
+
+    /**
+     * Creates the manager, the stages are created on demand up to the pool
+     * size and kept until dispose, their native windows while the pool is in
+     * use
+     *
+     * @param poolSize maximum number of visible toasts
+     * @param maxPerSecond maximum number of toasts shown per second
+     * @param displayTime time each toast stays visible
+     */
+    public NotificationManager(int poolSize, int maxPerSecond, Duration displayTime) {
+        this(null, poolSize, maxPerSecond, displayTime);
+    }
+
+    /**
+     * Creates the manager, the stages are created on demand up to the pool
+     * size and kept until dispose, their native windows while the pool is in
+     * use
+     *
+     * @param owner owner of the toast stages, keeps them out of the taskbar,
+     * the pool is hidden when it is hidden
+     * @param poolSize maximum number of visible toasts
+     * @param maxPerSecond maximum number of toasts shown per second
+     * @param displayTime time each toast stays visible
+     */
+    public NotificationManager(Window owner, int poolSize, int maxPerSecond, Duration displayTime) {
+        this.owner = owner;
+        this.poolSize = poolSize;
+        this.displayTime = displayTime;
+        this.dispatcher = new Timeline(new KeyFrame(Duration.millis(1000.0 / maxPerSecond), (evt) -> dispatch()));
+        this.dispatcher.setCycleCount(Animation.INDEFINITE);
+        this.idle.setOnFinished((evt) -> release());
+
+        if (owner != null) {
+            owner.addEventHandler(WindowEvent.WINDOW_HIDDEN, (evt) -> {
+                clear();
+                release();
+            });
+        }
+    }
+
+    /**
+     * Queues a notification, a notification equal to a visible or queued one
+     * increments its counter instead. Can be called from any thread
+     *
+     * @param title
+     * @param message
+     */
+    public void post(String title, String message) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> post(title, message));
+            return;
+        }
+
+        String key = title + '\n' + message;
+
+        for (Toast toast : visible) {
+            if (key.equals(toast.key)) {
+                toast.coalesce(1, message);
+                return;
+            }
+        }
+
+        Pending queued = queuedByKey.get(key);
+
+        if (queued != null) {
+            queued.count++;
+            return;
+        }
+
+        if (queue.size() == MAX_QUEUED) {
+            queuedByKey.remove(queue.removeFirst().key);
+        }
+
+        Pending pending = new Pending(key, title, message);
+        queue.addLast(pending);
+        queuedByKey.put(key, pending);
+
+        if (dispatcher.getStatus() != Animation.Status.RUNNING) {
+            // Shows the first one right away, the rate limit applies to the next
+            dispatch();
+            dispatcher.play();
+        }
+    }
+
+    /**
+     * Get the number of notifications waiting for a free toast
+     *
+     * @return
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Removes all the toasts from the screen and discards the queued
+     * notifications
+     */
+    public void clear() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::clear);
+            return;
+        }
+
+        queue.clear();
+        queuedByKey.clear();
+        dispatcher.stop();
+
+        for (Toast toast : new ArrayList<>(visible)) {
+            dismiss(toast);
+        }
+    }
+
+    /**
+     * Discards the notifications and closes the pooled stages, the manager
+     * can still be used and creates new stages when needed
+     */
+    public void dispose() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::dispose);
+            return;
+        }
+
+        clear();
+        release();
+        pool.clear();
+    }
+
+    /**
+     * Hides the pooled stages of the free toasts, their native windows are
+     * created again on the next notification
+     */
+    private void release() {
+        idle.stop();
+
+        for (Toast toast : pool) {
+            if (!visible.contains(toast)) {
+                toast.stage.hide();
+            }
+        }
+    }
+
+    private void dispatch() {
+        if (queue.isEmpty()) {
+            dispatcher.stop();
+            return;
+        }
+
+        Toast toast = freeToast();
+
+        if (toast == null) {
+            return;
+        }
+
+        Pending pending = queue.removeFirst();
+        queuedByKey.remove(pending.key);
+        idle.stop();
+
+        toast.show(pending);
+        visible.add(toast);
+        layout();
+    }
+
+    private Toast freeToast() {
+        for (Toast toast : pool) {
+            if (!visible.contains(toast)) {
+                return toast;
+            }
+        }
+
+        if (pool.size() < poolSize) {
+            Toast toast = new Toast();
+            pool.add(toast);
+            return toast;
+        }
+
+        return null;
+    }
+
+    private void dismiss(Toast toast) {
+        toast.timer.stop();
+        toast.park();
+        toast.key = null;
+        visible.remove(toast);
+        layout();
+
+        if (!queue.isEmpty() && dispatcher.getStatus() != Animation.Status.RUNNING) {
+            dispatcher.play();
+        } else if (queue.isEmpty() && visible.isEmpty()) {
+            idle.playFromStart();
+        }
+    }
+
+    /**
+     * Stacks the visible toasts from the bottom right corner, the newest on
+     * top
+     */
+    private void layout() {
+        Rectangle2D bounds = Screen.getPrimary().getVisualBounds();
+        double y = bounds.getMaxY();
+
+        for (Toast toast : visible) {
+            y -= toast.stage.getHeight() + GAP;
+            toast.stage.setX(bounds.getMaxX() - toast.stage.getWidth() - GAP);
+            toast.stage.setY(y);
+        }
+    }
+
+}
@@ -0,0 +1,422 @@
+package br.com.fandrauss.fx.gui;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.Control;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TitledPane;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Region;
+import javafx.scene.text.Text;
+
+/**
+ * Diagnostics of the cost of the loaded views. When enabled, each view is
+ * analyzed after loading: node count, depth, effects, clips, CSS hotspots and
+ * estimated memory. A warning is logged when some budget is exceeded and the
+ * report is exported once per controller class, off the FX thread
+ *
+ * <pre>
+ * SceneGraphAnalyzer.enable(new SceneGraphAnalyzer.Budget().maxNodes(3000), new File("view-reports"));
+ * </pre>
+ *
+ * @author Fernando Andrauss
+ */
+public final class SceneGraphAnalyzer {
+
+    private static final Logger LOGGER = Logger.getLogger(SceneGraphAnalyzer.class.getName());
+
+    private static final int HOTSPOTS = 5;
+
+    // Rough shallow sizes, only meant to compare views between releases
+    private static final long NODE_BYTES = 400;
+    private static final long REGION_BYTES = 300;
+    private static final long CONTROL_BYTES = 1200;
+    private static final long TEXT_BYTES = 500;
+
+    private static final Set<Class<?>> EXPORTED = ConcurrentHashMap.newKeySet();
+
+    private static final ExecutorService EXPORTER = Executors.newSingleThreadExecutor((r) -> {
+        Thread thread = new Thread(r, "SceneGraphAnalyzer-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile Budget budget;
+    private static volatile File exportDirectory;
+
+    private SceneGraphAnalyzer() {
+    }
+
+    /**
+     * Limits of a view, the report warns when some of them is exceeded
+     */
+    public static final class Budget {
+
+        private int maxNodes = 5000;
+        private int maxDepth = 20;
+        private int maxEffects = 20;
+        private int maxClips = 50;
+        private long maxMemoryBytes = 16 * 1024 * 1024;
+
+        public Budget maxNodes(int maxNodes) {
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        public Budget maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Budget maxEffects(int maxEffects) {
+            this.maxEffects = maxEffects;
+            return this;
+        }
+
+        public Budget maxClips(int maxClips) {
+            this.maxClips = maxClips;
+            return this;
+        }
+
+        public Budget maxMemoryBytes(long maxMemoryBytes) {
+            this.maxMemoryBytes = maxMemoryBytes;
+            return this;
+        }
+    }
+
+    /**
+     * Cost report of a view
+     */
+    public static final class ViewReport {
+
+        private int nodeCount;
+        private int maxDepth;
+        private int effectCount;
+        private int uncachedEffectCount;
+        private int clipCount;
+        private int inlineStyleCount;
+        private long estimatedBytes;
+        private List<String> cssHotspots = Collections.emptyList();
+        private final List<String> warnings = new ArrayList<>();
+
+        private ViewReport() {
+        }
+
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public int getEffectCount() {
+            return effectCount;
+        }
+
+        /**
+         * Get the number of nodes with effect and cache disabled, the effect
+         * is rendered again on every frame they change
+         *
+         * @return
+         */
+        public int getUncachedEffectCount() {
+            return uncachedEffectCount;
+        }
+
+        public int getClipCount() {
+            return clipCount;
+        }
+
+        public int getInlineStyleCount() {
+            return inlineStyleCount;
+        }
+
+        /**
+         * Get the rough estimate of the memory used by the view, including
+         * the images
+         *
+         * @return
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * Get the style classes with the most matching work, weighted by the
+         * depth of the nodes that have them
+         *
+         * @return style classes with their weight, the heaviest first
+         */
+        public List<String> getCssHotspots() {
+            return cssHotspots;
+        }
+
+        /**
+         * Get the exceeded budgets
+         *
+         * @return
+         */
+        public List<String> getWarnings() {
+            return Collections.unmodifiableList(warnings);
+        }
+
+        /**
+         * Converts the report to properties, the format used on export
+         *
+         * @return
+         */
+        public Properties toProperties() {
+            Properties properties = new Properties();
+            properties.setProperty("nodes", String.valueOf(nodeCount));
+            properties.setProperty("depth", String.valueOf(maxDepth));
+            properties.setProperty("effects", String.valueOf(effectCount));
+            properties.setProperty("effects.uncached", String.valueOf(uncachedEffectCount));
+            properties.setProperty("clips", String.valueOf(clipCount));
+            properties.setProperty("styles.inline", String.valueOf(inlineStyleCount));
+            properties.setProperty("memory.estimated", String.valueOf(estimatedBytes));
+            properties.setProperty("css.hotspots", String.join(", ", cssHotspots));
+            properties.setProperty("warnings", String.join("; ", warnings));
+            return properties;
+        }
+
+        @Override
+        public String toString() {
+            return "nodes=" + nodeCount + ", depth=" + maxDepth + ", effects=" + effectCount
+                    + " (" + uncachedEffectCount + " uncached), clips=" + clipCount
+                    + ", inlineStyles=" + inlineStyleCount + ", memory~" + estimatedBytes / 1024 + "KB"
+                    + ", cssHotspots=" + cssHotspots;
+        }
+    }
+
+    /**
+     * Enables the analysis of every loaded view
+     *
+     * @param budget view limits
+     * @param exportDirectory directory of the reports, null to not export
+     */
+    public static void enable(Budget budget, File exportDirectory) {
+        SceneGraphAnalyzer.exportDirectory = exportDirectory;
+        EXPORTED.clear();
+        SceneGraphAnalyzer.budget = budget != null ? budget : new Budget();
+    }
+
+    /**
+     * Disables the analysis of the loaded views
+     */
+    public static void disable() {
+        budget = null;
+    }
+
+    /**
+     * Check if the loaded views are analyzed
+     *
+     * @return
+     */
+    public static boolean isEnabled() {
+        return budget != null;
+    }
+
+    /**
+     * Analyzes the graph of the root. The CSS should be applied before so the
+     * skins of the controls are counted
+     *
+     * @param root
+     * @return
+     */
+    public static ViewReport analyze(Parent root) {
+        ViewReport report = new ViewReport();
+        Map<String, Long> styleClassWeight = new HashMap<>();
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Image> images = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        nodes.push(root);
+        depths.push(1);
+
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            int depth = depths.pop();
+
+            if (node == null || !visited.add(node)) {
+                continue;
+            }
+
+            report.nodeCount++;
+            report.maxDepth = Math.max(report.maxDepth, depth);
+            report.estimatedBytes += estimateBytes(node);
+
+            if (node.getEffect() != null) {
+                report.effectCount++;
+
+                if (!node.isCache()) {
+                    report.uncachedEffectCount++;
+                }
+            }
+
+            if (node.getClip() != null) {
+                report.clipCount++;
+            }
+
+            if (node.getStyle() != null && !node.getStyle().isEmpty()) {
+                report.inlineStyleCount++;
+            }
+
+            for (String styleClass : node.getStyleClass()) {
+                styleClassWeight.merge(styleClass, (long) depth, Long::sum);
+            }
+
+            if (node instanceof ImageView) {
+                Image image = ((ImageView) node).getImage();
+
+                if (image != null && images.add(image)) {
+                    report.estimatedBytes += (long) (image.getWidth() * image.getHeight() * 4);
+                }
+            }
+
+            for (Node child : children(node)) {
+                nodes.push(child);
+                depths.push(depth + 1);
+            }
+        }
+
+        report.cssHotspots = styleClassWeight.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(HOTSPOTS)
+                .map((e) -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.toList());
+
+        return report;
+    }
+
+    /**
+     * Analyzes the view of a controller, logs the exceeded budgets and exports
+     * the report
+     *
+     * @param controller controller class
+     * @param root loaded view
+     * @return report or null if the analyzer is disabled
+     */
+    static ViewReport inspect(Class<?> controller, Parent root) {
+        Budget limits = budget;
+
+        if (limits == null) {
+            return null;
+        }
+
+        root.applyCss();
+        ViewReport report = analyze(root);
+
+        check(report, report.nodeCount > limits.maxNodes, "nodes " + report.nodeCount + " > " + limits.maxNodes);
+        check(report, report.maxDepth > limits.maxDepth, "depth " + report.maxDepth + " > " + limits.maxDepth);
+        check(report, report.effectCount > limits.maxEffects, "effects " + report.effectCount + " > " + limits.maxEffects);
+        check(report, report.clipCount > limits.maxClips, "clips " + report.clipCount + " > " + limits.maxClips);
+        check(report, report.estimatedBytes > limits.maxMemoryBytes, "memory " + report.estimatedBytes + " > " + limits.maxMemoryBytes);
+
+        if (!report.warnings.isEmpty()) {
+            LOGGER.log(Level.WARNING, "View of {0} exceeds its budget: {1} ({2})", new Object[]{controller.getName(), report.warnings, report});
+        }
+
+        export(controller, report);
+        return report;
+    }
+
+    private static void check(ViewReport report, boolean exceeded, String warning) {
+        if (exceeded) {
+            report.warnings.add(warning);
+        }
+    }
+
+    private static void export(Class<?> controller, ViewReport report) {
+        File directory = exportDirectory;
+
+        // The view of a class is the same on every show
+        if (directory == null || !EXPORTED.add(controller)) {
+            return;
+        }
+
+        Properties properties = report.toProperties();
+        EXPORTER.execute(() -> write(directory, controller, properties));
+    }
+
+    private static void write(File directory, Class<?> controller, Properties properties) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOGGER.log(Level.WARNING, "Could not create the report directory {0}", directory);
+            return;
+        }
+
+        try (OutputStream out = new FileOutputStream(new File(directory, controller.getName() + ".properties"))) {
+            properties.store(out, "View report of " + controller.getName());
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Could not export the view report of " + controller.getName(), ex);
+        }
+    }
+
+    /**
+     * Children of the node, including the content of the controls that is not
+     * on the graph before the skin is created. With the skin the content is
+     * already below it, at its real depth
+     */
+    private static List<Node> children(Node node) {
+        if (!(node instanceof Parent)) {
+            return Collections.emptyList();
+        }
+
+        List<Node> children = new ArrayList<>(((Parent) node).getChildrenUnmodifiable());
+
+        if (node instanceof Control && ((Control) node).getSkin() != null) {
+            return children;
+        }
+
+        if (node instanceof TabPane) {
+            for (Tab tab : ((TabPane) node).getTabs()) {
+                children.add(tab.getContent());
+            }
+        } else if (node instanceof ScrollPane) {
+            children.add(((ScrollPane) node).getContent());
+        } else if (node instanceof SplitPane) {
+            children.addAll(((SplitPane) node).getItems());
+        } else if (node instanceof TitledPane) {
+            children.add(((TitledPane) node).getContent());
+        }
+
+        return children;
+    }
+
+    private static long estimateBytes(Node node) {
+        if (node instanceof Control) {
+            return CONTROL_BYTES;
+        } else if (node instanceof Region) {
+            return REGION_BYTES;
+        } else if (node instanceof Text) {
+            return TEXT_BYTES;
+        }
+        return NODE_BYTES;
+    }
+
+}
@@ -0,0 +1,203 @@
+package br.com.fandrauss.fx.gui;
+
+import java.util.concurrent.TimeUnit;
+import javafx.animation.AnimationTimer;
+import javafx.animation.FadeTransition;
+import javafx.animation.ParallelTransition;
+import javafx.animation.ScaleTransition;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+/**
+ * Open and close transitions played over a snapshot of the window content, so
+ * each frame draws one image instead of the whole scene graph. The snapshot is
+ * placed over the live content, which stays on the scene (keeping focus, CSS
+ * and layout) with opacity 0 until the animation finishes
+ *
+ * @author Fernando Andrauss
+ */
+final class SnapshotTransition {
+
+    /**
+     * Frames (or the snapshot itself) slower than this skip to the end of the
+     * animation, about three frames at 60Hz
+     */
+    private static final long FRAME_BUDGET = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final Duration DURATION = Duration.millis(200);
+
+    private static final double SCALE_FROM = 0.85;
+
+    private static final String CLOSING = "br.com.fandrauss.fx.gui.closing";
+
+    private static final String HOST = "br.com.fandrauss.fx.gui.transitionHost";
+
+    private final StackPane host;
+    private final Node live;
+    private final double liveOpacity;
+    private final ParallelTransition animation = new ParallelTransition();
+    private final Runnable onFinished;
+    private final AnimationTimer budget = new AnimationTimer() {
+        private long last;
+
+        @Override
+        public void start() {
+            last = 0;
+            super.start();
+        }
+
+        @Override
+        public void handle(long now) {
+            if (last != 0 && now - last > FRAME_BUDGET) {
+                animation.stop();
+                finish();
+            }
+            last = now;
+        }
+    };
+
+    private boolean finished = false;
+    private ImageView view;
+
+    private SnapshotTransition(StackPane host, Runnable onFinished) {
+        this.host = host;
+        this.live = host.getChildren().get(0);
+        this.liveOpacity = live.getOpacity();
+        this.onFinished = onFinished;
+    }
+
+    /**
+     * Creates the scene root of a window with transition, the snapshot is
+     * stacked over the content while animating. The host gets the root style
+     * class from the scene, the content inherits from it as from any parent
+     *
+     * @param content window content
+     * @return root to be set on the scene
+     */
+    static Parent host(Region content) {
+        StackPane host = new StackPane(content);
+        host.getProperties().put(HOST, Boolean.TRUE);
+        return host;
+    }
+
+    private static StackPane hostOf(Stage stage) {
+        Scene scene = stage.getScene();
+
+        if (scene != null && scene.getRoot() instanceof StackPane && scene.getRoot().getProperties().containsKey(HOST)) {
+            return (StackPane) scene.getRoot();
+        }
+        return null;
+    }
+
+    /**
+     * Plays the open transition, should be called when the stage is shown
+     *
+     * @param stage
+     * @param type transition type
+     */
+    static void playIn(Stage stage, WindowControllerFx.ShowTransition type) {
+        StackPane host = hostOf(stage);
+
+        if (type == WindowControllerFx.ShowTransition.NONE || host == null) {
+            return;
+        }
+
+        new SnapshotTransition(host, null).play(type, true);
+    }
+
+    /**
+     * Plays the close transition, the action (usually hide or close) is called
+     * when it finishes. Calls while a close transition is running are ignored
+     *
+     * @param stage
+     * @param type transition type
+     * @param action called at the end of the transition
+     */
+    static void playOut(Stage stage, WindowControllerFx.ShowTransition type, Runnable action) {
+        StackPane host = hostOf(stage);
+
+        if (type == WindowControllerFx.ShowTransition.NONE || host == null || !stage.isShowing()) {
+            action.run();
+            return;
+        }
+
+        if (stage.getProperties().containsKey(CLOSING)) {
+            return;
+        }
+
+        stage.getProperties().put(CLOSING, Boolean.TRUE);
+        new SnapshotTransition(host, () -> {
+            stage.getProperties().remove(CLOSING);
+            action.run();
+        }).play(type, false);
+    }
+
+    private void play(WindowControllerFx.ShowTransition type, boolean in) {
+        long start = System.nanoTime();
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        WritableImage image = live.snapshot(params, null);
+
+        // The snapshot already costs a frame, there is no budget left to animate
+        if (System.nanoTime() - start > FRAME_BUDGET) {
+            if (onFinished != null) {
+                onFinished.run();
+            }
+            return;
+        }
+
+        view = new ImageView(image);
+        view.setManaged(false);
+        view.relocate(live.getBoundsInParent().getMinX(), live.getBoundsInParent().getMinY());
+        host.getChildren().add(view);
+
+        // Opacity 0 skips the rendering of the live graph without touching focus, CSS or layout
+        live.setOpacity(0);
+
+        FadeTransition fade = new FadeTransition(DURATION, view);
+        fade.setFromValue(in ? 0 : 1);
+        fade.setToValue(in ? 1 : 0);
+        animation.getChildren().add(fade);
+
+        if (type == WindowControllerFx.ShowTransition.SCALE) {
+            ScaleTransition scale = new ScaleTransition(DURATION, view);
+            scale.setFromX(in ? SCALE_FROM : 1);
+            scale.setFromY(in ? SCALE_FROM : 1);
+            scale.setToX(in ? 1 : SCALE_FROM);
+            scale.setToY(in ? 1 : SCALE_FROM);
+            animation.getChildren().add(scale);
+        }
+
+        animation.setOnFinished((evt) -> finish());
+        budget.start();
+        animation.play();
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+
+        finished = true;
+        budget.stop();
+
+        if (onFinished != null) {
+            onFinished.run();
+        }
+
+        // Back to the live graph, also after close so the window can be shown again
+        host.getChildren().remove(view);
+        live.setOpacity(liveOpacity);
+    }
+
+}
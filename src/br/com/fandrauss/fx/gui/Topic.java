@@ -0,0 +1,50 @@
+package br.com.fandrauss.fx.gui;
+
+/**
+ * Typed topic of the WindowMessageBus, topics are compared by identity so they
+ * are usually declared as constants
+ *
+ * <pre>
+ * public static final Topic&lt;Customer&gt; CUSTOMER_SELECTED = Topic.of("customer-selected", Customer.class);
+ * </pre>
+ *
+ * @param <T> message type
+ * @author Fernando Andrauss
+ * @see WindowMessageBus
+ */
+public final class Topic<T> {
+
+    private final String name;
+    private final Class<T> type;
+
+    private Topic(String name, Class<T> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Creates a topic
+     *
+     * @param <T> message type
+     * @param name topic name, used on toString
+     * @param type message type
+     * @return
+     */
+    public static <T> Topic<T> of(String name, Class<T> type) {
+        return new Topic<>(name, type);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "Topic[" + name + "]";
+    }
+
+}
@@ -0,0 +1,507 @@
+package br.com.fandrauss.fx.gui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Persistent cache of the resolved structure of the FXML views, shared across
+ * launches. Each entry is keyed by the FXML content hash and the library
+ * version and keeps the controller binding strategy and the classes the view
+ * and its includes instantiate.
+ *
+ * FXMLLoader can not be fed with a pre-parsed view, so the cache saves the
+ * work around the parsing instead: the first load of each view skips the
+ * controller probe, and on startup the classes of all cached views are loaded
+ * in background, before the first window opens. The FXML hashes are checked
+ * by the same background task, the FX thread only reads the loaded entries
+ *
+ * <pre>
+ * ViewCache.enable(new File(System.getProperty("user.home"), ".myapp/view-cache"));
+ * </pre>
+ *
+ * Entries of other library
+ * versions and entries not used for 30 days are deleted, a changed FXML has a
+ * new hash and gets a new entry
+ *
+ * @author Fernando Andrauss
+ */
+public final class ViewCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ViewCache.class.getName());
+
+    private static final int MAGIC = 0x57435643;
+    private static final int FORMAT = 2;
+    private static final String EXTENSION = ".wcv";
+    private static final long MAX_UNUSED_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    /**
+     * Time the first lookup waits for the entries checked by the warmup, the
+     * first window usually opens right after enable
+     */
+    private static final long WARMUP_WAIT_MILLIS = 250;
+
+    /**
+     * Library version, used to invalidate the entries written by other
+     * versions
+     */
+    static final String VERSION = resolveVersion();
+
+    private static volatile File directory;
+
+    /**
+     * Entries checked against the current FXML content, by source location
+     */
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private static volatile CountDownLatch entriesChecked = new CountDownLatch(0);
+    private static final AtomicBoolean WAITED = new AtomicBoolean(false);
+
+    private ViewCache() {
+    }
+
+    /**
+     * Cached structure of one view
+     */
+    static final class Entry {
+
+        private final WindowSpec.LoadStrategy loadStrategy;
+        private final String source;
+        private final List<String> classNames;
+
+        private Entry(WindowSpec.LoadStrategy loadStrategy, String source, List<String> classNames) {
+            this.loadStrategy = loadStrategy;
+            this.source = source;
+            this.classNames = classNames;
+        }
+
+        WindowSpec.LoadStrategy getLoadStrategy() {
+            return loadStrategy;
+        }
+
+        String getSource() {
+            return source;
+        }
+
+        List<String> getClassNames() {
+            return classNames;
+        }
+    }
+
+    /**
+     * Enables the cache and starts, in background, the cleanup of the stale
+     * entries and the warmup of the classes of the cached views
+     *
+     * @param cacheDirectory directory of the entries, created if needed
+     */
+    public static void enable(File cacheDirectory) {
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            LOGGER.log(Level.WARNING, "Could not create the view cache directory {0}", cacheDirectory);
+            return;
+        }
+
+        directory = cacheDirectory;
+        entriesChecked = new CountDownLatch(1);
+        WAITED.set(false);
+        background("view-cache-warmup", ViewCache::warmUp);
+    }
+
+    /**
+     * Disables the cache, the entries are kept
+     */
+    public static void disable() {
+        directory = null;
+        ENTRIES.clear();
+    }
+
+    /**
+     * Check if the cache is enabled
+     *
+     * @return
+     */
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Finds the entry of the FXML among the entries already checked by the
+     * warmup, no I/O is done on the calling thread. The first lookup waits a
+     * little for the warmup to check the entries
+     *
+     * @param source FXML location
+     * @return entry or null if not cached, stale or not checked yet
+     */
+    static Entry lookup(URL source) {
+        File dir = directory;
+
+        if (dir == null) {
+            return null;
+        }
+
+        if (WAITED.compareAndSet(false, true)) {
+            try {
+                entriesChecked.await(WARMUP_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Entry entry = ENTRIES.get(source.toExternalForm());
+
+        if (entry != null) {
+            background("view-cache-touch", () -> {
+                try {
+                    Path path = dir.toPath().resolve(hash(source) + EXTENSION);
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                } catch (IOException ex) {
+                    LOGGER.log(Level.FINE, "View cache touch failed for " + source, ex);
+                }
+            });
+        }
+
+        return entry;
+    }
+
+    /**
+     * Writes, in background, the entry of the FXML
+     *
+     * @param source FXML location
+     * @param loadStrategy controller binding strategy learned on load
+     */
+    static void store(URL source, WindowSpec.LoadStrategy loadStrategy) {
+        File dir = directory;
+
+        if (dir == null) {
+            return;
+        }
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        background("view-cache-store", () -> {
+            try {
+                Set<String> classNames = new LinkedHashSet<>();
+                scan(source, loader, classNames, new LinkedHashSet<>());
+
+                Entry entry = new Entry(loadStrategy, source.toExternalForm(), new ArrayList<>(classNames));
+                write(dir.toPath().resolve(hash(source) + EXTENSION), entry);
+                ENTRIES.put(entry.getSource(), entry);
+            } catch (IOException | XMLStreamException ex) {
+                LOGGER.log(Level.FINE, "View cache store failed for " + source, ex);
+            }
+        });
+    }
+
+    /**
+     * Removes the stale entries, checks the others against the current FXML
+     * content and then loads their classes, so lookups only wait for the
+     * check
+     */
+    private static void warmUp() {
+        File dir = directory;
+        File[] files = dir != null ? dir.listFiles((d, name) -> name.endsWith(EXTENSION)) : null;
+
+        List<Entry> checked = new ArrayList<>();
+
+        try {
+            if (files == null) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+
+            for (File file : files) {
+                try {
+                    Entry entry = now - file.lastModified() > MAX_UNUSED_MILLIS ? null : read(file.toPath());
+
+                    if (entry == null) {
+                        Files.deleteIfExists(file.toPath());
+                        continue;
+                    }
+
+                    // A changed FXML has a new hash, the old entry expires unused
+                    if (!file.getName().equals(hash(new URL(entry.getSource())) + EXTENSION)) {
+                        continue;
+                    }
+
+                    ENTRIES.putIfAbsent(entry.getSource(), entry);
+                    checked.add(entry);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.FINE, "View cache warmup failed for " + file, ex);
+                }
+            }
+        } finally {
+            entriesChecked.countDown();
+        }
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        for (Entry entry : checked) {
+            for (String className : entry.getClassNames()) {
+                try {
+                    Class.forName(className, false, loader);
+                } catch (ClassNotFoundException | LinkageError ex) {
+                    // The class was removed or renamed, the entry is still useful
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an entry, the file is read at once and closed so it can be deleted
+     * or replaced right away
+     *
+     * @return entry or null if written by other version or format
+     */
+    private static Entry read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                return null;
+            }
+
+            if (!VERSION.equals(readString(buffer))) {
+                return null;
+            }
+
+            WindowSpec.LoadStrategy strategy = WindowSpec.LoadStrategy.values()[buffer.get()];
+            String source = readString(buffer);
+            List<String> classNames = readStrings(buffer);
+
+            return new Entry(strategy, source, classNames);
+        } catch (RuntimeException ex) {
+            // Truncated or corrupted entry
+            return null;
+        }
+    }
+
+    /**
+     * Writes an entry, through a temporary file so readers never see it
+     * partially written
+     */
+    private static void write(Path path, Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            writeString(out, VERSION);
+            out.writeByte(entry.getLoadStrategy().ordinal());
+            writeString(out, entry.getSource());
+            writeStrings(out, entry.getClassNames());
+        }
+
+        Path temp = Files.createTempFile(path.getParent(), "entry", ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Collects the classes instantiated by the FXML and its includes
+     */
+    private static void scan(URL source, ClassLoader loader, Set<String> classNames, Set<String> visited) throws IOException, XMLStreamException {
+        if (!visited.add(source.toExternalForm())) {
+            return;
+        }
+
+        Map<String, String> imports = new HashMap<>();
+        List<String> packages = new ArrayList<>();
+        List<String> nested = new ArrayList<>();
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+        try (InputStream in = source.openStream()) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.PROCESSING_INSTRUCTION && "import".equals(reader.getPITarget())) {
+                        String target = reader.getPIData().trim();
+
+                        if (target.endsWith(".*")) {
+                            packages.add(target.substring(0, target.length() - 2));
+                        } else {
+                            imports.put(target.substring(target.lastIndexOf('.') + 1), target);
+                        }
+                    } else if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+
+                        if ("include".equals(name) && reader.getPrefix() != null && !reader.getPrefix().isEmpty()) {
+                            String include = reader.getAttributeValue(null, "source");
+
+                            if (include != null) {
+                                nested.add(include);
+                            }
+                            continue;
+                        }
+
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            if ("fx".equals(reader.getAttributePrefix(i)) && "controller".equals(reader.getAttributeLocalName(i))) {
+                                classNames.add(reader.getAttributeValue(i));
+                            }
+                        }
+
+                        String className = resolveClass(name, imports, packages, loader);
+
+                        if (className != null) {
+                            classNames.add(className);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        for (String include : nested) {
+            URL url = include.startsWith("/")
+                    ? loader.getResource(include.substring(1))
+                    : new URL(source, include);
+
+            if (url != null) {
+                scan(url, loader, classNames, visited);
+            }
+        }
+    }
+
+    /**
+     * Resolves an element name to the instantiated class, property elements
+     * (lowercase) and static properties (Type.property) are ignored
+     */
+    private static String resolveClass(String name, Map<String, String> imports, List<String> packages, ClassLoader loader) {
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+
+        if (simpleName.isEmpty() || !Character.isUpperCase(simpleName.charAt(0))) {
+            return null;
+        }
+
+        if (name.contains(".")) {
+            return name;
+        }
+
+        if (imports.containsKey(name)) {
+            return imports.get(name);
+        }
+
+        for (String pkg : packages) {
+            try {
+                return Class.forName(pkg + "." + name, false, loader).getName();
+            } catch (ClassNotFoundException | LinkageError ex) {
+                // Not on this package
+            }
+        }
+
+        return null;
+    }
+
+    private static String hash(URL source) throws IOException {
+        try (InputStream in = source.openStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+
+            StringBuilder hex = new StringBuilder();
+
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[checkLength(buffer.getInt(), buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        // Each value has at least its length field
+        int size = checkLength(buffer.getInt(), buffer, 4);
+        List<String> values = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            values.add(readString(buffer));
+        }
+
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Checks a length read from an entry against the bytes left, a corrupted
+     * length must not allocate a huge array
+     *
+     * @throws IllegalArgumentException if the length does not fit
+     */
+    private static int checkLength(int length, ByteBuffer buffer, int minBytesEach) {
+        if (length < 0 || length > buffer.remaining() / minBytesEach) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    private static void background(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        thread.start();
+    }
+
+    private static String resolveVersion() {
+        String version = ViewCache.class.getPackage() != null ? ViewCache.class.getPackage().getImplementationVersion() : null;
+        return version != null ? version : "1.0";
+    }
+
+}
@@ -0,0 +1,67 @@
+package br.com.fandrauss.fx.gui;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent on each phase of the first frame of a window: CSS application,
+ * preferred size computation, layout and the native show
+ *
+ * @author Fernando Andrauss
+ * @see WindowControllerFx#getWarmupTimings()
+ */
+public final class WarmupTimings {
+
+    private final long cssNanos;
+    private final long sizeNanos;
+    private final long layoutNanos;
+    private final long showNanos;
+
+    WarmupTimings(long cssNanos, long sizeNanos, long layoutNanos, long showNanos) {
+        this.cssNanos = cssNanos;
+        this.sizeNanos = sizeNanos;
+        this.layoutNanos = layoutNanos;
+        this.showNanos = showNanos;
+    }
+
+    /**
+     * Copy with the time of the native show
+     *
+     * @param nanos
+     * @return
+     */
+    WarmupTimings withShow(long nanos) {
+        return new WarmupTimings(cssNanos, sizeNanos, layoutNanos, nanos);
+    }
+
+    public long getCssNanos() {
+        return cssNanos;
+    }
+
+    public long getSizeNanos() {
+        return sizeNanos;
+    }
+
+    public long getLayoutNanos() {
+        return layoutNanos;
+    }
+
+    /**
+     * Get the time of the native show
+     *
+     * @return time or 0 if not shown by the show methods
+     */
+    public long getShowNanos() {
+        return showNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "css=" + millis(cssNanos) + "ms, size=" + millis(sizeNanos) + "ms, layout=" + millis(layoutNanos)
+                + "ms, show=" + millis(showNanos) + "ms";
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+}
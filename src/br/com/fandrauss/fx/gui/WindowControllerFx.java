@@ -1,12 +1,27 @@
 package br.com.fandrauss.fx.gui;
 
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.beans.NamedArg;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import javafx.event.EventHandler;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.geometry.Orientation;
+import javafx.scene.Group;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.effect.BoxBlur;
@@ -19,6 +34,7 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.stage.Window;
+import javafx.stage.WindowEvent;
 
 /**
  * Utility class for easy window creation
@@ -31,13 +47,43 @@ public abstract class WindowControllerFx implements Initializable {
     private Region rootWindowPane;
     private Window parent;
     private Image icon;
+    private String iconSet;
     private Stage stage;
+    private WindowDesktop desktop;
+    private InternalWindow internalWindow;
     private Modality modality;
     private boolean wait = false;
     private boolean blur = false;
     private ShowEffect effectType;
     private Effect oldEffectParent;
     private Effect showEffect;
+    private CompletableFuture<Object> result;
+    private ShowTransition showTransition = ShowTransition.NONE;
+    private boolean progressiveLoading = false;
+    private final Deque<LazyPane> lazyQueue = new ArrayDeque<>();
+    private AnimationTimer lazyLoader;
+    private final List<WindowMessageBus.Subscription<?>> subscriptions = new ArrayList<>();
+    private final EventHandler<WindowEvent> onHidden = (evt) -> onWindowHidden();
+    private double width = Double.NaN;
+    private double height = Double.NaN;
+    private Scene warmScene;
+    private boolean warmedUp = false;
+    private WarmupTimings warmupTimings;
+    private double minWidth = 0;
+    private double minHeight = 0;
+    private double maxWidth = Double.MAX_VALUE;
+    private double maxHeight = Double.MAX_VALUE;
+
+    /**
+     * Content source of each controller class and FXML path, resolved on first
+     * show
+     */
+    private static final Map<SpecKey, WindowSpec> SPECS = new ConcurrentHashMap<>();
+
+    /**
+     * Desktop used by the controllers without their own desktop
+     */
+    private static volatile WindowDesktop defaultDesktop;
 
     private final String ERROR_MSG = "This method can not be called before window creation";
 
@@ -45,6 +91,10 @@ public abstract class WindowControllerFx implements Initializable {
         BLUR, COLOR_ADJUST;
     }
 
+    public enum ShowTransition {
+        NONE, FADE, SCALE;
+    }
+
     /**
      * O construtor default deve existir para que o controller possa ser
      * instanciado pelo FXMLLoader no momento do carregamento do layout (no caso
@@ -79,6 +129,19 @@ public abstract class WindowControllerFx implements Initializable {
         return this;
     }
 
+    /**
+     * Defines stage icons from an icon set registered on WindowIcons. When
+     * neither an icon nor an icon set is defined the default set is used
+     *
+     * @param iconSet icon set name
+     * @return
+     * @see WindowIcons
+     */
+    public WindowControllerFx setIcons(String iconSet) {
+        this.iconSet = iconSet;
+        return this;
+    }
+
     /**
      * Defines stage modality
      *
@@ -114,6 +177,31 @@ public abstract class WindowControllerFx implements Initializable {
         return this;
     }
 
+    /**
+     * Shows this window as an internal window of the desktop instead of a
+     * native stage. In this mode getWindow returns null, use close(Object) to
+     * close the window. setWait and the show transition are ignored
+     *
+     * @param desktop
+     * @return
+     * @see WindowDesktop
+     */
+    public WindowControllerFx setDesktop(WindowDesktop desktop) {
+        this.desktop = desktop;
+        return this;
+    }
+
+    /**
+     * Defines the desktop used by all controllers without their own desktop,
+     * null to go back to native stages
+     *
+     * @param desktop
+     * @see #setDesktop(WindowDesktop)
+     */
+    public static void setDefaultDesktop(WindowDesktop desktop) {
+        defaultDesktop = desktop;
+    }
+
     /**
      * Enable showAndWait
      *
@@ -158,12 +246,99 @@ public abstract class WindowControllerFx implements Initializable {
     }
 
     /**
-     * Maximize stage. Note: can only called after window creation
+     * Defines the stage minimum size, can be called before window creation.
+     * On desktop mode it is applied to the internal window
+     *
+     * @param width
+     * @param height
+     * @return
+     */
+    public WindowControllerFx setMinSize(double width, double height) {
+        this.minWidth = width;
+        this.minHeight = height;
+        this.warmedUp = false;
+
+        if (isOpenInternal()) {
+            internalWindow.setMinSize(width, height);
+            internalWindow.autosize();
+        } else if (stage != null) {
+            stage.setMinWidth(width);
+            stage.setMinHeight(height);
+        }
+        return this;
+    }
+
+    /**
+     * Defines the stage maximum size, can be called before window creation.
+     * On desktop mode it is applied to the internal window
+     *
+     * @param width
+     * @param height
+     * @return
+     */
+    public WindowControllerFx setMaxSize(double width, double height) {
+        this.maxWidth = width;
+        this.maxHeight = height;
+        this.warmedUp = false;
+
+        if (isOpenInternal()) {
+            internalWindow.setMaxSize(width, height);
+            internalWindow.autosize();
+        } else if (stage != null) {
+            stage.setMaxWidth(width);
+            stage.setMaxHeight(height);
+        }
+        return this;
+    }
+
+    /**
+     * Defines the transition played when the window opens and closes. The
+     * transition animates a snapshot of the content and is skipped when the
+     * frames take too long. With a transition the scene root is a StackPane
+     * that hosts the window content, not the content itself
+     *
+     * @param transition
+     * @return
+     */
+    public WindowControllerFx setShowTransition(ShowTransition transition) {
+        this.showTransition = transition != null ? transition : ShowTransition.NONE;
+        return this;
+    }
+
+    /**
+     * Enable progressive loading, the window is shown with the placeholders of
+     * the visible lazy sections and they are loaded one per pulse
+     *
+     * @param progressive
+     * @return
+     * @see LazyPane
+     */
+    public WindowControllerFx setProgressiveLoading(boolean progressive) {
+        this.progressiveLoading = progressive;
+        return this;
+    }
+
+    /**
+     * Check if progressive loading is enabled
+     *
+     * @return
+     */
+    public boolean isProgressiveLoading() {
+        return progressiveLoading;
+    }
+
+    /**
+     * Maximize stage, on desktop mode the window fills the desktop. Note: can
+     * only called after window creation
      *
      * @return
      * @throws RuntimeException if called before window creation
      */
     public WindowControllerFx setMaximized() {
+        if (isOpenInternal()) {
+            internalWindow.setMaximized(true);
+            return this;
+        }
         if (stage == null) {
             throw new RuntimeException(ERROR_MSG);
         }
@@ -172,42 +347,61 @@ public abstract class WindowControllerFx implements Initializable {
     }
 
     /**
-     * Defines the stage height. Note: can only called after window creation
+     * Defines the stage height. If called before window creation it is the
+     * height of the content and the stage is sized around it, on desktop mode
+     * it is applied to the internal window
      *
      * @param height
      * @return
-     * @throws RuntimeException if called before window creation
      */
     public WindowControllerFx setHeight(double height) {
+        if (isOpenInternal()) {
+            internalWindow.resizeWindow(internalWindow.getWidth(), height);
+            return this;
+        }
         if (stage == null) {
-            throw new RuntimeException(ERROR_MSG);
+            this.height = height;
+            this.warmedUp = false;
+            return this;
         }
         stage.setHeight(height);
         return this;
     }
 
     /**
-     * Defines the stage width. Note: can only called after window creation
+     * Defines the stage width. If called before window creation it is the
+     * width of the content and the stage is sized around it, on desktop mode
+     * it is applied to the internal window
      *
      * @param width
      * @return
-     * @throws RuntimeException if called before window creation
      */
     public WindowControllerFx setWidth(double width) {
+        if (isOpenInternal()) {
+            internalWindow.resizeWindow(width, internalWindow.getHeight());
+            return this;
+        }
         if (stage == null) {
-            throw new RuntimeException(ERROR_MSG);
+            this.width = width;
+            this.warmedUp = false;
+            return this;
         }
         stage.setWidth(width);
         return this;
     }
 
     /**
-     * Minimize stage. Note: can only called after window creation
+     * Minimize stage, on desktop mode the window bounds are restored. Note:
+     * can only called after window creation
      *
      * @return
      * @throws RuntimeException if called before window creation
      */
     public WindowControllerFx setMinimized() {
+        if (isOpenInternal()) {
+            internalWindow.setMaximized(false);
+            return this;
+        }
         if (stage == null) {
             throw new RuntimeException(ERROR_MSG);
         }
@@ -216,12 +410,17 @@ public abstract class WindowControllerFx implements Initializable {
     }
 
     /**
-     * Switch to fullscreen mode. Note: can only called after window creation
+     * Switch to fullscreen mode, on desktop mode the window fills the desktop.
+     * Note: can only called after window creation
      *
      * @return
      * @throws RuntimeException if called before window creation
      */
     public WindowControllerFx fullScreen() {
+        if (isOpenInternal()) {
+            internalWindow.setMaximized(true);
+            return this;
+        }
         if (stage == null) {
             throw new RuntimeException(ERROR_MSG);
         }
@@ -236,6 +435,10 @@ public abstract class WindowControllerFx implements Initializable {
      * @throws RuntimeException if called before window creation
      */
     public WindowControllerFx exitFullSreen() {
+        if (isOpenInternal()) {
+            internalWindow.setMaximized(false);
+            return this;
+        }
         if (stage == null) {
             throw new RuntimeException(ERROR_MSG);
         }
@@ -273,7 +476,8 @@ public abstract class WindowControllerFx implements Initializable {
     }
 
     /**
-     * This method should be overriden
+     * This method should be overriden. The path may depend on the instance,
+     * the resource lookup is cached per class and path
      *
      * @return path of FXML layout resource
      */
@@ -290,109 +494,455 @@ public abstract class WindowControllerFx implements Initializable {
         return null;
     }
 
+    /**
+     * Key of the cached specs, the class and the FXML path of the controller
+     */
+    private static final class SpecKey {
+
+        private final Class<?> type;
+        private final String fxml;
+
+        private SpecKey(Class<?> type, String fxml) {
+            this.type = type;
+            this.fxml = fxml;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SpecKey)) {
+                return false;
+            }
+            SpecKey other = (SpecKey) obj;
+            return type == other.type && Objects.equals(fxml, other.fxml);
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode() * 31 + Objects.hashCode(fxml);
+        }
+    }
+
+    /**
+     * Resolves the content source of this controller class and FXML path. The
+     * result is cached, the source is null when the FXML resource does not
+     * exist (the coded layout of getRootPane takes precedence anyway)
+     *
+     * @return cached spec of this controller class and FXML path
+     */
+    private WindowSpec resolveSpec() {
+        SpecKey key = new SpecKey(getClass(), getFXML());
+        WindowSpec spec = SPECS.get(key);
+
+        if (spec == null) {
+            URL source = key.fxml != null ? getClass().getResource(key.fxml) : null;
+
+            // A previous launch may already know how the FXML binds the controller
+            ViewCache.Entry cached = source != null ? ViewCache.lookup(source) : null;
+
+            spec = WindowSpec.builder()
+                    .source(source)
+                    .loadStrategy(cached != null ? cached.getLoadStrategy() : WindowSpec.LoadStrategy.UNKNOWN)
+                    .build();
+            SPECS.put(key, spec);
+        }
+
+        return spec;
+    }
+
     /**
      * This method load the FXML content defined on getFXML or load the region
      * content defined on getRootPane method
      *
+     * @param spec resolved window spec
      * @throws Exception FXML load exceptions or RuntimeException if FXML and
      * RootPane not defined
      */
-    private void loadView() throws Exception {
+    private void loadView(WindowSpec spec) throws Exception {
 
         // Load coded layout
         Region codedLayout = getRootPane();
 
-        // Check if getFXML methdod was overwritten
-        if (getFXML() != null && codedLayout == null) {
+        if (codedLayout != null) {
 
-            // Controller object, refresent FXML defined controller
-            Object controller;
+            // If the layout is hardcoded
+            rootWindowPane = codedLayout;
 
-            FXMLLoader loader = new FXMLLoader();
+        } else if (spec.getSource() != null) {
 
-            // Define the location based on getFXML method
-            loader.setLocation(getClass().getResource(getFXML()));
+            switch (spec.getLoadStrategy()) {
+                case CONTROLLER_FACTORY: {
+                    rootWindowPane = loadWithControllerFactory(spec.getSource()).load();
+                    break;
+                }
+                case CONTROLLER: {
+                    rootWindowPane = loadWithController(spec.getSource()).load();
+                    break;
+                }
+                default: {
+                    learnLoadStrategy(spec);
+                }
+            }
 
-            try {
+        } else if (getFXML() != null) {
+            throw new RuntimeException("FXML resource not found: " + getFXML());
+        } else {
+            throw new RuntimeException("The content source is not defined, you must override getFXML or getRootPane!");
+        }
 
-                /**
-                 * Overrides the controller defined on FXML
-                 */
-                loader.setControllerFactory((c) -> this);
+        // Lazy sections find their owner through the root pane
+        rootWindowPane.getProperties().put(WindowControllerFx.class, this);
+    }
 
-                // Load the root component from FXML
-                rootWindowPane = loader.load();
+    /**
+     * First load of the FXML of this controller class, finds out if the FXML
+     * defines the controller and caches the strategy for the next loads
+     *
+     * @param spec resolved window spec
+     * @throws Exception FXML load exceptions
+     */
+    private void learnLoadStrategy(WindowSpec spec) throws Exception {
 
-                controller = loader.getController();
+        // Controller object, refresent FXML defined controller
+        Object controller;
 
-            } catch (Exception e) {
-                // If occurs controller not defined exception, the controller is defined to null 
-                controller = null;
+        try {
+            FXMLLoader loader = loadWithControllerFactory(spec.getSource());
 
-                // If the exception is not related to controller definition throws again
-                if (!e.getMessage().contains("specified")) {
-                    throw e;
-                }
-            }
+            // Load the root component from FXML
+            rootWindowPane = loader.load();
 
-            // If the controller is null (controler not defined exception)
-            if (controller == null) {
+            controller = loader.getController();
 
-                // Is created another loader
-                loader = new FXMLLoader();
-                loader.setLocation(getClass().getResource(getFXML()));
+        } catch (Exception e) {
+            // If occurs controller not defined exception, the controller is defined to null 
+            controller = null;
 
-                loader.setController(this);
-                rootWindowPane = loader.load();
+            // If the exception is not related to controller definition throws again
+            if (e.getMessage() == null || !e.getMessage().contains("specified")) {
+                throw e;
             }
+        }
 
-        } else if (codedLayout != null) {
+        WindowSpec.LoadStrategy strategy = WindowSpec.LoadStrategy.CONTROLLER_FACTORY;
 
-            // If the layout is hardcoded
-            rootWindowPane = codedLayout;
+        // If the controller is null (controler not defined exception)
+        if (controller == null) {
+            rootWindowPane = loadWithController(spec.getSource()).load();
+            strategy = WindowSpec.LoadStrategy.CONTROLLER;
+        }
 
-        } else {
-            throw new RuntimeException("The content source is not defined, you must override getFXML or getRootPane!");
+        SPECS.put(new SpecKey(getClass(), getFXML()), spec.toBuilder().loadStrategy(strategy).build());
+        ViewCache.store(spec.getSource(), strategy);
+    }
+
+    /**
+     * Creates a loader that overrides the controller defined on FXML
+     *
+     * @param source FXML location
+     * @return
+     */
+    private FXMLLoader loadWithControllerFactory(URL source) {
+        FXMLLoader loader = new FXMLLoader(source);
+        loader.setControllerFactory((c) -> this);
+        return loader;
+    }
+
+    /**
+     * Creates a loader for FXML without controller definition
+     *
+     * @param source FXML location
+     * @return
+     */
+    private FXMLLoader loadWithController(URL source) {
+        FXMLLoader loader = new FXMLLoader(source);
+        loader.setController(this);
+        return loader;
+    }
+
+    /**
+     * Creates the window spec for one show, based on the cached class spec and
+     * on the options of this controller
+     *
+     * @param style stage style
+     * @param modality stage modality
+     * @param transparent transparent root pane
+     * @return
+     */
+    private WindowSpec createSpec(StageStyle style, Modality modality, boolean transparent) {
+        return resolveSpec().toBuilder()
+                .style(style)
+                .modality(modality)
+                .transparent(transparent)
+                .icons(resolveIcons())
+                .effect(blur ? resolveShowEffect() : null)
+                .minSize(minWidth, minHeight)
+                .maxSize(maxWidth, maxHeight)
+                .build();
+    }
+
+    /**
+     * Resolve the stage icons, the own icon takes precedence over the icon set
+     * and the icon set over the default icons
+     *
+     * @return
+     */
+    private List<Image> resolveIcons() {
+        if (icon != null) {
+            return Collections.singletonList(icon);
         }
+
+        return iconSet != null ? WindowIcons.get(iconSet) : WindowIcons.getDefault();
     }
 
     /**
-     * Show's the window on decorated mode
+     * Loads the view ahead of the show, off-screen, and applies CSS and layout
+     * on it. The work is done on a later FX event, so it can be called when
+     * the application is idle; the next show uses the prepared view
      *
      * @return
      */
-    public WindowControllerFx show() {
-        return show(parent);
+    public WindowControllerFx prewarm() {
+        Platform.runLater(() -> {
+            // Nothing to prepare while the current view is on screen
+            if (warmScene != null || (stage != null && stage.isShowing())
+                    || isOpenInternal()) {
+                return;
+            }
+
+            try {
+                loadView(resolveSpec());
+                double[] size = contentSize();
+                warmScene = createScene(size);
+                warmUp(size);
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to load window", ex);
+            }
+        });
+        return this;
     }
 
     /**
-     * Show's the window on decorated mode
+     * Get the time spent on each phase of the first frame of the last show
+     *
+     * @return timings or null if not shown yet
+     */
+    public WarmupTimings getWarmupTimings() {
+        return warmupTimings;
+    }
+
+    /**
+     * Uses the prewarmed view or loads a new one
+     *
+     * @param spec resolved window spec
+     * @return scene of the prewarmed view, or null if a new view was loaded
+     * @throws Exception FXML load exceptions
+     */
+    private Scene takeView(WindowSpec spec) throws Exception {
+        Scene scene = warmScene;
+        warmScene = null;
+
+        if (scene == null) {
+            loadView(spec);
+            warmedUp = false;
+        }
+
+        return scene;
+    }
+
+    /**
+     * Get the content size of the scene, as given to the Scene constructor
+     * (-1 uses the preferred size). A size defined before creation is the
+     * content size, within the minimum and maximum size, and a reused stage
+     * keeps the size of its current scene
+     *
+     * @return width and height, or null if a reused stage has a size that is
+     * only known once shown
+     */
+    private double[] contentSize() {
+        if (stage != null) {
+            Scene current = stage.getScene();
+
+            if (current != null && current.getWidth() > 0 && current.getHeight() > 0) {
+                return new double[]{current.getWidth(), current.getHeight()};
+            }
+
+            // Outer size set on the stage, the decorations are not known before show
+            if (!Double.isNaN(stage.getWidth()) || !Double.isNaN(stage.getHeight())) {
+                return null;
+            }
+        }
+
+        return new double[]{
+            Double.isNaN(width) ? -1 : clamp(width, minWidth, maxWidth),
+            Double.isNaN(height) ? -1 : clamp(height, minHeight, maxHeight)
+        };
+    }
+
+    private Scene createScene(double[] size) {
+        return size != null ? new Scene(sceneRoot(), size[0], size[1]) : new Scene(sceneRoot());
+    }
+
+    /**
+     * Applies CSS and layout on the loaded view at the size the scene gives
+     * its root on show, so the first pulse after show has nothing left to
+     * compute
+     *
+     * @param size content size of the scene, null to only apply CSS
+     */
+    private void warmUp(double[] size) {
+        Parent root = rootWindowPane.getScene().getRoot();
+
+        long start = System.nanoTime();
+        root.applyCss();
+        long css = System.nanoTime();
+
+        if (size == null) {
+            warmupTimings = new WarmupTimings(css - start, 0, 0, 0);
+            warmedUp = true;
+            return;
+        }
+
+        // Same computation of Scene, a dimension not given follows the content bias
+        double w;
+        double h;
+
+        if (root.getContentBias() == Orientation.VERTICAL) {
+            h = scenePrefHeight(root, size[1], -1);
+            w = scenePrefWidth(root, size[0], h);
+        } else {
+            w = scenePrefWidth(root, size[0], -1);
+            h = scenePrefHeight(root, size[1], root.getContentBias() == Orientation.HORIZONTAL ? w : -1);
+        }
+        long sized = System.nanoTime();
+
+        root.resize(w, h);
+        root.layout();
+        long layout = System.nanoTime();
+
+        warmupTimings = new WarmupTimings(css - start, sized - css, layout - sized, 0);
+        warmedUp = true;
+    }
+
+    private static double scenePrefWidth(Parent root, double width, double height) {
+        return width >= 0 ? width : clamp(root.prefWidth(height), root.minWidth(height), root.maxWidth(height));
+    }
+
+    private static double scenePrefHeight(Parent root, double height, double width) {
+        return height >= 0 ? height : clamp(root.prefHeight(width), root.minHeight(width), root.maxHeight(width));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Shared pipeline of all show modes, loads the view and creates or
+     * updates the stage according to the spec
      *
      * @param parent parent window
-     * @return
+     * @param spec window spec
+     * @return the configured stage, not shown yet
+     * @throws Exception FXML load exceptions
      */
-    public WindowControllerFx show(Window parent) {
+    private Stage prepareStage(Window parent, WindowSpec spec) throws Exception {
+        Class<?> previous = FxStallWatchdog.enterLoading(getClass());
+
         try {
-            this.parent = parent;
-            loadView();
+            return doPrepareStage(parent, spec);
+        } finally {
+            FxStallWatchdog.exitLoading(previous);
+        }
+    }
 
-            if (stage == null) {
-                stage = WindowControllerFxUtils.createStageFromContent(parent, rootWindowPane, title.get());
-                stage.titleProperty().bind(title);
-                stage.initModality(Modality.NONE);
-                stage.initOwner(parent);
-                stage.initStyle(StageStyle.DECORATED);
+    private Stage doPrepareStage(Window parent, WindowSpec spec) throws Exception {
+        this.parent = parent;
 
-                if (icon != null) {
-                    stage.getIcons().add(icon);
-                }
-            } else {
-                stage.setScene(new Scene(rootWindowPane));
+        // The prewarmed scene is used as is, CSS and layout were applied on it
+        Scene scene = takeView(spec);
+        double[] size = contentSize();
+
+        // A size defined after prewarm changes the scene size, fixed on its creation
+        if (scene != null && !warmedUp) {
+            scene.setRoot(new Group());
+            scene = null;
+        }
+
+        if (scene == null) {
+            scene = createScene(size);
+        }
+
+        if (stage == null) {
+            stage = WindowControllerFxUtils.createStageFromScene(parent, scene, title.get(), spec.getStyle(), spec.getModality());
+            stage.titleProperty().bind(title);
+            WindowIcons.apply(stage, spec.getIcons());
+        } else {
+            stage.setScene(scene);
+
+            // A stage passed on setStage keeps its own icons when there is no set to apply
+            if (!spec.getIcons().isEmpty()) {
+                WindowIcons.apply(stage, spec.getIcons());
             }
+        }
+
+        // Size constraints only touch the stage when defined, a stage passed on setStage keeps its own
+        if (spec.getMinWidth() > 0 || spec.getMinHeight() > 0) {
+            stage.setMinWidth(spec.getMinWidth());
+            stage.setMinHeight(spec.getMinHeight());
+        }
 
-            if (blur) {
-                applyShowEffect();
+        if (spec.getMaxWidth() < Double.MAX_VALUE || spec.getMaxHeight() < Double.MAX_VALUE) {
+            stage.setMaxWidth(spec.getMaxWidth());
+            stage.setMaxHeight(spec.getMaxHeight());
+        }
+
+        if (spec.isTransparent()) {
+            stage.getScene().setFill(Color.TRANSPARENT);
+            rootWindowPane.setStyle("-fx-background-color: transparent;");
+
+            if (stage.getScene().getRoot() != rootWindowPane) {
+                stage.getScene().getRoot().setStyle("-fx-background-color: transparent;");
             }
+        }
+
+        if (SceneGraphAnalyzer.isEnabled()) {
+            SceneGraphAnalyzer.inspect(getClass(), rootWindowPane);
+        }
+
+        // The stage is sized from the scene, no resize after the first frame
+        if (!warmedUp) {
+            warmUp(size);
+        }
+
+        applyShowEffect(spec.getEffect());
+        installShowTransition();
+
+        // A stage reused by setStage drops the hook of the controller shown on it before
+        Object previous = stage.getProperties().put(WindowMessageBus.class, this);
+
+        if (previous != this) {
+            if (previous instanceof WindowControllerFx) {
+                stage.removeEventHandler(WindowEvent.WINDOW_HIDDEN, ((WindowControllerFx) previous).onHidden);
+            }
+            stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, onHidden);
+        }
+
+        return stage;
+    }
+
+    /**
+     * Shared pipeline of all show modes, prepares and shows the stage
+     *
+     * @param parent parent window
+     * @param spec window spec
+     * @return
+     */
+    private WindowControllerFx showStage(Window parent, WindowSpec spec) {
+        if (resolveDesktop() != null) {
+            return showInternal(parent, spec);
+        }
+
+        try {
+            prepareStage(parent, spec);
 
             if (wait) {
                 stage.showingProperty().addListener((v, o, n) -> {
@@ -402,11 +952,12 @@ public abstract class WindowControllerFx implements Initializable {
                 });
                 stage.showAndWait();
             } else {
+                long start = System.nanoTime();
                 stage.show();
+                warmupTimings = warmupTimings.withShow(System.nanoTime() - start);
             }
 
             onShow();
-
             return this;
 
         } catch (Exception ex) {
@@ -414,6 +965,77 @@ public abstract class WindowControllerFx implements Initializable {
         }
     }
 
+    /**
+     * Shared pipeline of all show modes on desktop mode, loads the view and
+     * opens it as an internal window
+     *
+     * @param parent parent window
+     * @param spec window spec
+     * @return
+     */
+    private WindowControllerFx showInternal(Window parent, WindowSpec spec) {
+        Class<?> previous = FxStallWatchdog.enterLoading(getClass());
+
+        try {
+            this.parent = parent;
+            Scene warm = takeView(spec);
+
+            // A node can be root of only one scene
+            if (warm != null) {
+                warm.setRoot(new Group());
+            }
+            internalWindow = resolveDesktop().open(this, spec, rootWindowPane);
+            InternalWindow window = internalWindow;
+            window.addOnClosed(() -> {
+                onWindowHidden();
+
+                // The next calls target the stage again, or the next internal window
+                if (internalWindow == window) {
+                    internalWindow = null;
+                }
+            });
+
+            if (!Double.isNaN(width) || !Double.isNaN(height)) {
+                internalWindow.resizeWindow(Double.isNaN(width) ? internalWindow.getWidth() : width,
+                        Double.isNaN(height) ? internalWindow.getHeight() : height);
+            }
+
+            if (SceneGraphAnalyzer.isEnabled()) {
+                SceneGraphAnalyzer.inspect(getClass(), rootWindowPane);
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to load window", ex);
+        } finally {
+            FxStallWatchdog.exitLoading(previous);
+        }
+
+        onShow();
+        return this;
+    }
+
+    private WindowDesktop resolveDesktop() {
+        return desktop != null ? desktop : defaultDesktop;
+    }
+
+    /**
+     * Show's the window on decorated mode
+     *
+     * @return
+     */
+    public WindowControllerFx show() {
+        return show(parent);
+    }
+
+    /**
+     * Show's the window on decorated mode
+     *
+     * @param parent parent window
+     * @return
+     */
+    public WindowControllerFx show(Window parent) {
+        return showStage(parent, createSpec(StageStyle.DECORATED, Modality.NONE, false));
+    }
+
     /**
      * Show's the window on decorated mode and in modal
      *
@@ -430,45 +1052,8 @@ public abstract class WindowControllerFx implements Initializable {
      * @return
      */
     public WindowControllerFx showModal(Window parent) {
-        try {
-            this.parent = parent;
-            modality = modality != null ? modality : Modality.WINDOW_MODAL;
-            System.out.println(modality);
-            loadView();
-            if (stage == null) {
-                stage = WindowControllerFxUtils.createStageFromContent(parent, rootWindowPane, title.get());
-                stage.titleProperty().bind(title);
-                stage.initModality(modality);
-                stage.initOwner(parent);
-                stage.initStyle(StageStyle.DECORATED);
-
-                if (icon != null) {
-                    stage.getIcons().add(icon);
-                }
-            } else {
-                stage.setScene(new Scene(rootWindowPane));
-            }
-
-            if (blur) {
-                applyShowEffect();
-            }
-            if (wait) {
-                stage.showingProperty().addListener((v, o, n) -> {
-                    if (n) {
-                        onShow();
-                    }
-                });
-                stage.showAndWait();
-            } else {
-                stage.show();
-            }
-
-            onShow();
-            return this;
-
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to load window", ex);
-        }
+        modality = modality != null ? modality : Modality.WINDOW_MODAL;
+        return showStage(parent, createSpec(StageStyle.DECORATED, modality, false));
     }
 
     /**
@@ -489,50 +1074,9 @@ public abstract class WindowControllerFx implements Initializable {
      * @return
      */
     public WindowControllerFx showUndecorated(@NamedArg(value = "parent") Window parent, @NamedArg(value = "transparent") boolean transparent) {
-        try {
-            this.parent = parent;
-            modality = modality != null ? modality : Modality.WINDOW_MODAL;
-            loadView();
-            if (stage == null) {
-                stage = WindowControllerFxUtils.createStageFromContent(parent, rootWindowPane, title.get());
-                stage.titleProperty().bind(title);
-                stage.initModality(modality);
-                stage.initOwner(parent);
-                stage.initStyle(StageStyle.UNDECORATED);
-
-                if (icon != null) {
-                    stage.getIcons().add(icon);
-                }
-            } else {
-                stage.setScene(new Scene(rootWindowPane));
-            }
-
-            if (transparent) {
-                stage.initStyle(StageStyle.TRANSPARENT);
-                stage.getScene().setFill(Color.TRANSPARENT);
-                rootWindowPane.setStyle("-fx-background-color: transparent;");
-            }
-
-            if (blur) {
-                applyShowEffect();
-            }
-            if (wait) {
-                stage.showingProperty().addListener((v, o, n) -> {
-                    if (n) {
-                        onShow();
-                    }
-                });
-                stage.showAndWait();
-            } else {
-                stage.show();
-            }
-
-            onShow();
-            return this;
-
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to load window", ex);
-        }
+        modality = modality != null ? modality : Modality.WINDOW_MODAL;
+        StageStyle style = transparent ? StageStyle.TRANSPARENT : StageStyle.UNDECORATED;
+        return showStage(parent, createSpec(style, modality, transparent));
     }
 
     /**
@@ -551,45 +1095,8 @@ public abstract class WindowControllerFx implements Initializable {
      * @return
      */
     public WindowControllerFx showAsDialg(Window parent) {
-        try {
-            this.parent = parent;
-            modality = modality != null ? modality : Modality.WINDOW_MODAL;
-            loadView();
-
-            if (stage == null) {
-                stage = WindowControllerFxUtils.createStageFromContent(parent, rootWindowPane, title.get());
-                stage.titleProperty().bind(title);
-                stage.initModality(modality);
-                stage.initOwner(parent);
-                stage.initStyle(StageStyle.UTILITY);
-
-                if (icon != null) {
-                    stage.getIcons().add(icon);
-                }
-            } else {
-                stage.setScene(new Scene(rootWindowPane));
-            }
-
-            if (blur) {
-                applyShowEffect();
-            }
-            if (wait) {
-                stage.showingProperty().addListener((v, o, n) -> {
-                    if (n) {
-                        onShow();
-                    }
-                });
-
-                stage.showAndWait();
-            } else {
-                stage.show();
-            }
-            onShow();
-            return this;
-
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to load window", ex);
-        }
+        modality = modality != null ? modality : Modality.WINDOW_MODAL;
+        return showStage(parent, createSpec(StageStyle.UTILITY, modality, false));
     }
 
     /**
@@ -609,24 +1116,8 @@ public abstract class WindowControllerFx implements Initializable {
      */
     public Stage createStage(Window parent) {
         try {
-            this.parent = parent;
             modality = modality != null ? modality : Modality.NONE;
-            loadView();
-
-            if (stage == null) {
-
-                stage = WindowControllerFxUtils.createStageFromContent(parent, rootWindowPane, title.get());
-                stage.titleProperty().bind(title);
-                stage.initModality(modality);
-                stage.initOwner(parent);
-                stage.initStyle(StageStyle.DECORATED);
-
-                if (icon != null) {
-                    stage.getIcons().add(icon);
-                }
-            } else {
-                stage.setScene(new Scene(rootWindowPane));
-            }
+            prepareStage(parent, createSpec(StageStyle.DECORATED, modality, false));
 
             stage.showingProperty().addListener((v, o, n) -> {
                 if (n) {
@@ -634,16 +1125,99 @@ public abstract class WindowControllerFx implements Initializable {
                 }
             });
 
-            if (blur) {
-                applyShowEffect();
-            }
-
             return stage;
         } catch (Exception ex) {
             throw new RuntimeException("Failed to load window", ex);
         }
     }
 
+    /**
+     * Show's the window on decorated mode and in modal without blocking the
+     * caller. The returned future is completed with the value passed to
+     * {@link #close(Object)}, or with null if the window is closed any other
+     * way. Can be called from any thread.
+     *
+     * @param <R> result type
+     * @return future of the window result
+     */
+    public <R> CompletableFuture<R> showForResult() {
+        return showForResult(parent);
+    }
+
+    /**
+     * Show's the window on decorated mode and in modal without blocking the
+     * caller. The returned future is completed with the value passed to
+     * {@link #close(Object)}, or with null if the window is closed any other
+     * way. Can be called from any thread.
+     *
+     * @param <R> result type
+     * @param parent parent window
+     * @return future of the window result
+     */
+    @SuppressWarnings("unchecked")
+    public <R> CompletableFuture<R> showForResult(Window parent) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Runnable open = () -> {
+            try {
+                result = future;
+                modality = modality != null ? modality : Modality.WINDOW_MODAL;
+
+                if (resolveDesktop() != null) {
+                    showInternal(parent, createSpec(StageStyle.DECORATED, modality, false));
+                    internalWindow.addOnClosed(() -> future.complete(null));
+                    return;
+                }
+
+                Stage s = createStage(parent);
+
+                // Removed once fired, a reused stage would collect one handler per open
+                s.addEventHandler(WindowEvent.WINDOW_HIDDEN, new EventHandler<WindowEvent>() {
+                    @Override
+                    public void handle(WindowEvent evt) {
+                        s.removeEventHandler(WindowEvent.WINDOW_HIDDEN, this);
+                        future.complete(null);
+                    }
+                });
+                s.show();
+            } catch (Exception ex) {
+                future.completeExceptionally(ex);
+            }
+        };
+
+        if (Platform.isFxApplicationThread()) {
+            open.run();
+        } else {
+            Platform.runLater(open);
+        }
+
+        return (CompletableFuture<R>) (CompletableFuture<?>) future;
+    }
+
+    /**
+     * Completes the future returned by showForResult with the given value and
+     * closes the window. Can be called from any thread.
+     *
+     * @param value window result
+     */
+    public void close(Object value) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> close(value));
+            return;
+        }
+
+        if (result != null) {
+            result.complete(value);
+        }
+
+        if (isOpenInternal()) {
+            internalWindow.close();
+        } else if (stage != null) {
+            Stage s = stage;
+            SnapshotTransition.playOut(s, showTransition, s::close);
+        }
+    }
+
     /**
      * Get the scene window
      *
@@ -653,6 +1227,20 @@ public abstract class WindowControllerFx implements Initializable {
         return stage;
     }
 
+    /**
+     * Get the internal window when shown on desktop mode
+     *
+     * @return internal window or null if shown as native stage or closed
+     * @see #setDesktop(WindowDesktop)
+     */
+    public InternalWindow getInternalWindow() {
+        return internalWindow;
+    }
+
+    private boolean isOpenInternal() {
+        return internalWindow != null && !internalWindow.isClosed();
+    }
+
     /**
      * On Show Handler, should overridden if want execute something on window
      * shown
@@ -661,9 +1249,12 @@ public abstract class WindowControllerFx implements Initializable {
     }
 
     /**
-     * Apply the show effect on the window parent (if exist)
+     * Resolve the effect to be applied on parent, the predefined effect takes
+     * precedence over the custom one
+     *
+     * @return effect or null if not defined
      */
-    private void applyShowEffect() {
+    private Effect resolveShowEffect() {
 
         if (effectType != null) {
             switch (effectType) {
@@ -678,7 +1269,165 @@ public abstract class WindowControllerFx implements Initializable {
             }
         }
 
-        if (showEffect == null) {
+        return showEffect;
+    }
+
+    /**
+     * Subscribes to a topic of the application message bus while this window
+     * is open, the subscription is removed when the window is closed. The last
+     * message of the topic is delivered right away
+     *
+     * @param <T> message type
+     * @param topic
+     * @param listener called on the FX thread, once per message
+     * @see WindowMessageBus
+     */
+    public <T> void subscribe(Topic<T> topic, Consumer<? super T> listener) {
+        // The bus holds the subscription weakly, the controller keeps it alive
+        subscriptions.add(WindowMessageBus.getDefault().subscribe(topic, listener));
+    }
+
+    /**
+     * Publishes a message on the application message bus
+     *
+     * @param <T> message type
+     * @param topic
+     * @param message
+     * @see WindowMessageBus
+     */
+    public <T> void publish(Topic<T> topic, T message) {
+        WindowMessageBus.getDefault().publish(topic, message);
+    }
+
+    private void unsubscribeAll() {
+        for (WindowMessageBus.Subscription<?> subscription : subscriptions) {
+            subscription.cancel();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * Lazy section loaded handler, should overridden if want to initialize
+     * something of a section when it is loaded
+     *
+     * @param section loaded section
+     * @see LazyPane
+     */
+    public void onLazyLoad(LazyPane section) {
+    }
+
+    /**
+     * Releases what only matters while the window is on screen: the bus
+     * subscriptions and the lazy sections still waiting to load
+     */
+    private void onWindowHidden() {
+        unsubscribeAll();
+
+        if (lazyLoader != null) {
+            lazyLoader.stop();
+        }
+
+        // Loaded again when they become visible on the next show
+        for (LazyPane section : lazyQueue) {
+            section.cancelRequest();
+        }
+        lazyQueue.clear();
+    }
+
+    /**
+     * Queues a visible lazy section to be loaded on the next pulses
+     *
+     * @param section
+     */
+    void enqueueLazyLoad(LazyPane section) {
+        lazyQueue.add(section);
+
+        if (lazyLoader == null) {
+            lazyLoader = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    // One section per pulse, the already loaded ones are painted meanwhile
+                    LazyPane next = lazyQueue.poll();
+
+                    if (next != null) {
+                        next.load();
+                    }
+
+                    if (lazyQueue.isEmpty()) {
+                        stop();
+                    }
+                }
+            };
+        }
+
+        lazyLoader.start();
+    }
+
+    /**
+     * Plays the show transition when the window is shown and before it is
+     * closed by the user
+     */
+    private void installShowTransition() {
+
+        if (showTransition == ShowTransition.NONE || stage.getProperties().containsKey(ShowTransition.class)) {
+            return;
+        }
+
+        // Installed once, the stage may be reused by setStage
+        stage.getProperties().put(ShowTransition.class, showTransition);
+
+        Stage s = stage;
+        s.addEventHandler(WindowEvent.WINDOW_SHOWN, (evt) -> SnapshotTransition.playIn(s, showTransition));
+
+        // The onCloseRequest handler runs after the added handlers, wrapping it
+        // lets the application cancel the close (consume) before the transition
+        EventHandler<WindowEvent> closeRequest = new EventHandler<WindowEvent>() {
+            private EventHandler<? super WindowEvent> application = s.getOnCloseRequest();
+
+            {
+                s.onCloseRequestProperty().addListener((v, o, n) -> {
+                    if (n != this) {
+                        application = n;
+                        s.setOnCloseRequest(this);
+                    }
+                });
+            }
+
+            @Override
+            public void handle(WindowEvent evt) {
+                if (application != null) {
+                    application.handle(evt);
+                }
+
+                if (evt.isConsumed()) {
+                    return;
+                }
+
+                evt.consume();
+                SnapshotTransition.playOut(s, showTransition, s::hide);
+            }
+        };
+        s.setOnCloseRequest(closeRequest);
+    }
+
+    /**
+     * Get the node to be set as scene root, the content itself or the
+     * transition host when a show transition is defined
+     *
+     * @return
+     */
+    private Parent sceneRoot() {
+        return showTransition == ShowTransition.NONE ? rootWindowPane : SnapshotTransition.host(rootWindowPane);
+    }
+
+    /**
+     * Apply the show effect on the window parent (if exist)
+     *
+     * @param effect effect to be applied, nothing is done if null
+     */
+    private void applyShowEffect(Effect effect) {
+
+        if (effect == null) {
             return;
         }
 
@@ -686,7 +1435,7 @@ public abstract class WindowControllerFx implements Initializable {
         getWindow().setOnShown((evt) -> {
             if (parent != null) {
                 oldEffectParent = parent.getScene().getRoot().getEffect();
-                parent.getScene().getRoot().setEffect(showEffect);
+                parent.getScene().getRoot().setEffect(effect);
             }
         });
 
@@ -696,21 +1445,6 @@ public abstract class WindowControllerFx implements Initializable {
                 parent.getScene().getRoot().setEffect(oldEffectParent);
             }
         });
-
-//        final Effect EFFECT = new ColorAdjust(0, 0, -0.52, 0);
-//
-//        getWindow().setOnShown((evt) -> {
-//            if (parent != null) {
-//                oldEffectParent = parent.getScene().getRoot().getEffect();
-//                parent.getScene().getRoot().setEffect(EFFECT);
-//            }
-//        });
-//
-//        getWindow().setOnHiding((event) -> {
-//            if (parent != null) {
-//                parent.getScene().getRoot().setEffect(oldEffectParent);
-//            }
-//        });
     }
 
     /**
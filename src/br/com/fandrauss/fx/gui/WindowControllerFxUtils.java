@@ -40,9 +40,23 @@ public class WindowControllerFxUtils {
      * @see Modality
      */
     public static Stage createStageFromContent(Window parent, Parent content, String title, StageStyle style, Modality modal) {
+        return createStageFromScene(parent, new Scene(content), title, style, modal);
+    }
+
+    /**
+     * Utility method to create stages with an existing scene
+     *
+     * @param parent window title
+     * @param scene window scene
+     * @param title window title
+     * @param style window style
+     * @param modal window modality
+     * @return
+     * @see Stage
+     */
+    public static Stage createStageFromScene(Window parent, Scene scene, String title, StageStyle style, Modality modal) {
         Stage s = new Stage(style);
 
-        Scene scene = new Scene(content);
         s.setScene(scene);
         s.initOwner(parent);
         s.initModality(modal);
@@ -0,0 +1,239 @@
+package br.com.fandrauss.fx.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.effect.Effect;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+
+/**
+ * Single Stage that hosts the controllers as internal windows (MDI), so the
+ * number of native windows stays constant regardless of how many windows are
+ * open. The controllers keep the same getFXML/getRootPane and show methods
+ *
+ * <pre>
+ * WindowControllerFx.setDefaultDesktop(new WindowDesktop(primaryStage));
+ * new MyController().showModal();
+ * </pre>
+ *
+ * Modality is emulated with an overlay that blocks the mouse on the windows
+ * below the modal one, their key events are discarded and the focus is moved
+ * back to the modal window, and the show effect is applied on the window that was active when the
+ * modal was shown
+ *
+ * @author Fernando Andrauss
+ * @see WindowControllerFx#setDesktop(WindowDesktop)
+ */
+public class WindowDesktop {
+
+    private static final double CASCADE_OFFSET = 24;
+    private static final int CASCADE_STEPS = 10;
+
+    private static final String MODAL_OVERLAY = "br.com.fandrauss.fx.gui.modalOverlay";
+
+    private final Stage stage;
+    private final Pane desktopPane = new Pane();
+    private int opened = 0;
+
+    /**
+     * Creates the desktop on the given stage, the stage scene is replaced
+     *
+     * @param stage host stage
+     */
+    public WindowDesktop(Stage stage) {
+        this.stage = stage;
+        desktopPane.getStyleClass().add("window-desktop");
+        desktopPane.setPrefSize(1024, 768);
+        stage.setScene(new Scene(desktopPane));
+
+        // The overlay only covers the mouse, keyboard and focus traversal are blocked here
+        desktopPane.addEventFilter(KeyEvent.ANY, (evt) -> {
+            if (evt.getTarget() instanceof Node && isBlocked((Node) evt.getTarget())) {
+                evt.consume();
+            }
+        });
+
+        desktopPane.getScene().focusOwnerProperty().addListener((v, o, n) -> {
+            if (n != null && isBlocked(n)) {
+                focusModalWindow();
+            }
+        });
+    }
+
+    /**
+     * Get the host stage
+     *
+     * @return
+     */
+    public Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * Get the pane where the windows are placed
+     *
+     * @return
+     */
+    public Pane getDesktopPane() {
+        return desktopPane;
+    }
+
+    /**
+     * Get the open windows, the bottom one first
+     *
+     * @return unmodifiable list of windows
+     */
+    public List<InternalWindow> getWindows() {
+        List<InternalWindow> ordered = new ArrayList<>();
+
+        for (Node node : desktopPane.getChildren()) {
+            if (node instanceof InternalWindow) {
+                ordered.add((InternalWindow) node);
+            }
+        }
+
+        return Collections.unmodifiableList(ordered);
+    }
+
+    /**
+     * Get the window on top
+     *
+     * @return window or null if there is no window open
+     */
+    public InternalWindow getActiveWindow() {
+        List<Node> children = desktopPane.getChildren();
+
+        for (int i = children.size() - 1; i >= 0; i--) {
+            if (children.get(i) instanceof InternalWindow) {
+                return (InternalWindow) children.get(i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Opens the controller content as an internal window
+     *
+     * @param controller
+     * @param spec window spec
+     * @param content loaded root pane
+     * @return
+     */
+    InternalWindow open(WindowControllerFx controller, WindowSpec spec, Region content) {
+        InternalWindow parentWindow = getActiveWindow();
+        InternalWindow window = new InternalWindow(controller, spec, content);
+
+        Region overlay = null;
+
+        if (spec.getModality() != Modality.NONE) {
+            overlay = createModalOverlay();
+            desktopPane.getChildren().add(overlay);
+        }
+
+        Effect effect = spec.getEffect();
+        Effect oldEffect = parentWindow != null ? parentWindow.getEffect() : null;
+
+        if (effect != null && parentWindow != null) {
+            parentWindow.setEffect(effect);
+        }
+
+        int step = opened++ % CASCADE_STEPS;
+        window.relocate(CASCADE_OFFSET * (step + 1), CASCADE_OFFSET * (step + 1));
+        window.autosize();
+
+        desktopPane.getChildren().add(window);
+
+        if (overlay != null) {
+            focusModalWindow();
+        }
+
+        Region modalOverlay = overlay;
+        window.addOnClosed(() -> {
+            desktopPane.getChildren().remove(window);
+
+            if (modalOverlay != null) {
+                desktopPane.getChildren().remove(modalOverlay);
+            }
+
+            if (effect != null && parentWindow != null) {
+                parentWindow.setEffect(oldEffect);
+            }
+        });
+
+        return window;
+    }
+
+    private Region createModalOverlay() {
+        Region overlay = new Region();
+        overlay.getStyleClass().add("modal-overlay");
+        overlay.getProperties().put(MODAL_OVERLAY, Boolean.TRUE);
+        overlay.setStyle("-fx-background-color: rgba(0, 0, 0, 0.15);");
+        overlay.prefWidthProperty().bind(desktopPane.widthProperty());
+        overlay.prefHeightProperty().bind(desktopPane.heightProperty());
+
+        // Blocks the input of the windows below
+        overlay.addEventFilter(MouseEvent.ANY, MouseEvent::consume);
+
+        return overlay;
+    }
+
+    /**
+     * Get the position of the top modal overlay on the desktop pane
+     *
+     * @return index or -1 if there is no modal window open
+     */
+    private int topOverlayIndex() {
+        List<Node> children = desktopPane.getChildren();
+
+        for (int i = children.size() - 1; i >= 0; i--) {
+            if (children.get(i).getProperties().containsKey(MODAL_OVERLAY)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Check if the node belongs to a window below the top modal overlay
+     *
+     * @param node
+     * @return
+     */
+    private boolean isBlocked(Node node) {
+        int overlay = topOverlayIndex();
+
+        if (overlay < 0) {
+            return false;
+        }
+
+        for (Node n = node; n != null; n = n.getParent()) {
+            if (n.getParent() == desktopPane) {
+                return desktopPane.getChildren().indexOf(n) < overlay;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the focus to the window above the top modal overlay
+     */
+    private void focusModalWindow() {
+        int overlay = topOverlayIndex();
+        List<Node> children = desktopPane.getChildren();
+
+        if (overlay >= 0 && overlay + 1 < children.size()) {
+            children.get(overlay + 1).requestFocus();
+        }
+    }
+
+}
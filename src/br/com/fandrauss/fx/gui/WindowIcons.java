@@ -0,0 +1,135 @@
+package br.com.fandrauss.fx.gui;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.image.Image;
+import javafx.stage.Stage;
+
+/**
+ * Application wide registry of window icons. Each resource is decoded once in
+ * background and the same Image is shared by all the stages
+ *
+ * <pre>
+ * WindowIcons.registerDefault("/icons/app-16.png", "/icons/app-32.png",
+ *         "/icons/app-48.png", "/icons/app-256.png");
+ * </pre>
+ *
+ * @author Fernando Andrauss
+ */
+public final class WindowIcons {
+
+    private static final Map<String, Image> IMAGES = new ConcurrentHashMap<>();
+    private static final Map<String, List<Image>> ICON_SETS = new ConcurrentHashMap<>();
+    private static volatile List<Image> defaultIcons = Collections.emptyList();
+
+    private WindowIcons() {
+    }
+
+    /**
+     * Registers an icon set, usually one resource per size (16, 32, 48, 256).
+     * The decoding starts in background immediately
+     *
+     * @param name icon set name
+     * @param resources classpath resources of the icons
+     * @return the icons of the set
+     * @throws RuntimeException if some resource does not exist
+     */
+    public static List<Image> register(String name, String... resources) {
+        List<Image> icons = decodeAll(resources);
+        ICON_SETS.put(name, icons);
+        return icons;
+    }
+
+    /**
+     * Registers the icon set applied to every window without its own icon
+     *
+     * @param resources classpath resources of the icons
+     * @return the icons of the set
+     * @throws RuntimeException if some resource does not exist
+     */
+    public static List<Image> registerDefault(String... resources) {
+        // Kept apart from the named sets, no name can replace it
+        defaultIcons = decodeAll(resources);
+        return defaultIcons;
+    }
+
+    /**
+     * Get a registered icon set
+     *
+     * @param name icon set name
+     * @return icons of the set or empty list if not registered
+     */
+    public static List<Image> get(String name) {
+        return ICON_SETS.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * Get the default icon set
+     *
+     * @return icons or empty list if not registered
+     */
+    public static List<Image> getDefault() {
+        return defaultIcons;
+    }
+
+    /**
+     * Defines the stage icons, the icons still decoding are applied again when
+     * finished
+     *
+     * @param stage
+     * @param icons
+     */
+    static void apply(Stage stage, List<Image> icons) {
+        stage.getIcons().setAll(icons);
+
+        for (Image icon : icons) {
+            if (icon.getProgress() < 1) {
+                // The image is shared, the listener must not keep the stage reachable
+                icon.progressProperty().addListener(new ChangeListener<Number>() {
+                    @Override
+                    public void changed(ObservableValue<? extends Number> v, Number o, Number n) {
+                        if (n.doubleValue() >= 1) {
+                            icon.progressProperty().removeListener(this);
+
+                            if (!icon.isError()) {
+                                stage.getIcons().setAll(icons);
+                            }
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private static List<Image> decodeAll(String... resources) {
+        List<Image> icons = new ArrayList<>(resources.length);
+
+        for (String resource : resources) {
+            icons.add(IMAGES.computeIfAbsent(resource, WindowIcons::decode));
+        }
+
+        return Collections.unmodifiableList(icons);
+    }
+
+    private static Image decode(String resource) {
+        URL url = WindowIcons.class.getResource(resource);
+
+        if (url == null) {
+            url = Thread.currentThread().getContextClassLoader().getResource(resource.startsWith("/") ? resource.substring(1) : resource);
+        }
+
+        if (url == null) {
+            throw new RuntimeException("Icon resource not found: " + resource);
+        }
+
+        // Background loading, decoded out of the FX thread
+        return new Image(url.toExternalForm(), true);
+    }
+
+}
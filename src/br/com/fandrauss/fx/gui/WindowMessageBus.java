@@ -0,0 +1,256 @@
+package br.com.fandrauss.fx.gui;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Publish/subscribe bus between windows. Messages can be published from any
+ * thread, they are queued and delivered on the FX thread in batches, once per
+ * pulse. The bus holds the subscriptions weakly, so it never keeps a closed
+ * window alive, and keeps the last message of each topic so new subscribers
+ * get the current state right away
+ *
+ * Controllers should use WindowControllerFx subscribe and publish, their
+ * subscriptions are removed when the window is closed
+ *
+ * @author Fernando Andrauss
+ * @see Topic
+ */
+public final class WindowMessageBus {
+
+    private static final Logger LOGGER = Logger.getLogger(WindowMessageBus.class.getName());
+
+    private static final WindowMessageBus DEFAULT = new WindowMessageBus();
+
+    private final Map<Topic<?>, List<WeakReference<Subscription<?>>>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Topic<?>, Object> lastValues = new ConcurrentHashMap<>();
+    private final Map<Topic<?>, Object> pendingBroadcasts = new ConcurrentHashMap<>();
+    private final Queue<Delivery> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private AnimationTimer pulse;
+
+    /**
+     * Subscription of a listener to a topic. The bus holds it weakly, the
+     * subscriber must keep a reference to it while it wants the messages
+     *
+     * @param <T> message type
+     */
+    public static final class Subscription<T> {
+
+        private final WindowMessageBus bus;
+        private final Topic<T> topic;
+        private final Consumer<? super T> listener;
+        private volatile boolean cancelled = false;
+
+        private Subscription(WindowMessageBus bus, Topic<T> topic, Consumer<? super T> listener) {
+            this.bus = bus;
+            this.topic = topic;
+            this.listener = listener;
+        }
+
+        public Topic<T> getTopic() {
+            return topic;
+        }
+
+        /**
+         * Stops the delivery of messages to this subscription
+         */
+        public void cancel() {
+            cancelled = true;
+            bus.remove(this);
+        }
+
+        private void deliver(Object message) {
+            if (!cancelled) {
+                listener.accept(topic.getType().cast(message));
+            }
+        }
+    }
+
+    /**
+     * Message waiting for the next pulse, target is null when it goes to all
+     * the subscribers of the topic
+     */
+    private static final class Delivery {
+
+        private final Topic<?> topic;
+        private final Object message;
+        private final Subscription<?> target;
+
+        private Delivery(Topic<?> topic, Object message, Subscription<?> target) {
+            this.topic = topic;
+            this.message = message;
+            this.target = target;
+        }
+    }
+
+    /**
+     * Get the application bus
+     *
+     * @return
+     */
+    public static WindowMessageBus getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Publishes a message, delivered on the next pulse. Can be called from any
+     * thread
+     *
+     * @param <T> message type
+     * @param topic
+     * @param message
+     */
+    public <T> void publish(Topic<T> topic, T message) {
+        Objects.requireNonNull(message, "message");
+        lastValues.put(topic, message);
+        pendingBroadcasts.put(topic, message);
+        enqueue(new Delivery(topic, message, null));
+    }
+
+    /**
+     * Subscribes a listener, the last message of the topic (if any) is
+     * delivered on the next pulse, once even if it is still queued for all
+     * the subscribers. The returned subscription is held weakly by the bus
+     *
+     * @param <T> message type
+     * @param topic
+     * @param listener called on the FX thread
+     * @return subscription, must be referenced by the subscriber
+     */
+    public <T> Subscription<T> subscribe(Topic<T> topic, Consumer<? super T> listener) {
+        Subscription<T> subscription = new Subscription<>(this, topic, listener);
+        subscribers.computeIfAbsent(topic, (t) -> new CopyOnWriteArrayList<>()).add(new WeakReference<>(subscription));
+
+        Object last = lastValues.get(topic);
+
+        // A queued broadcast of the last message already reaches the new subscription
+        if (last != null && pendingBroadcasts.get(topic) != last) {
+            enqueue(new Delivery(topic, last, subscription));
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Get the last message published on the topic
+     *
+     * @param <T> message type
+     * @param topic
+     * @return message or null if nothing was published
+     */
+    public <T> T getLastValue(Topic<T> topic) {
+        return topic.getType().cast(lastValues.get(topic));
+    }
+
+    /**
+     * Forgets the last message of the topic
+     *
+     * @param topic
+     */
+    public void clearLastValue(Topic<?> topic) {
+        lastValues.remove(topic);
+    }
+
+    private void remove(Subscription<?> subscription) {
+        List<WeakReference<Subscription<?>>> list = subscribers.get(subscription.getTopic());
+
+        if (list != null) {
+            list.removeIf((ref) -> ref.get() == null || ref.get() == subscription);
+        }
+    }
+
+    private void enqueue(Delivery delivery) {
+        queue.add(delivery);
+
+        if (scheduled.compareAndSet(false, true)) {
+            if (Platform.isFxApplicationThread()) {
+                startPulse();
+            } else {
+                Platform.runLater(this::startPulse);
+            }
+        }
+    }
+
+    private void startPulse() {
+        if (pulse == null) {
+            pulse = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    flush();
+                }
+            };
+        }
+        pulse.start();
+    }
+
+    /**
+     * Delivers the queued messages, the ones published during the delivery go
+     * to the next pulse
+     */
+    private void flush() {
+        scheduled.set(false);
+
+        int pending = queue.size();
+
+        for (int i = 0; i < pending; i++) {
+            Delivery delivery = queue.poll();
+
+            if (delivery == null) {
+                break;
+            }
+
+            if (delivery.target != null) {
+                deliver(delivery.target, delivery.message);
+                continue;
+            }
+
+            // Identity, as in subscribe: an equal message published later is still pending
+            pendingBroadcasts.computeIfPresent(delivery.topic, (t, value) -> value == delivery.message ? null : value);
+
+            List<WeakReference<Subscription<?>>> list = subscribers.get(delivery.topic);
+
+            if (list == null) {
+                continue;
+            }
+
+            for (WeakReference<Subscription<?>> ref : list) {
+                Subscription<?> subscription = ref.get();
+
+                if (subscription == null) {
+                    list.remove(ref);
+                } else {
+                    deliver(subscription, delivery.message);
+                }
+            }
+        }
+
+        // Messages queued from other threads meanwhile have scheduled a new start
+        if (queue.isEmpty()) {
+            pulse.stop();
+        } else {
+            scheduled.set(true);
+        }
+    }
+
+    private void deliver(Subscription<?> subscription, Object message) {
+        try {
+            subscription.deliver(message);
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Subscriber of " + subscription.getTopic() + " failed", ex);
+        }
+    }
+
+}
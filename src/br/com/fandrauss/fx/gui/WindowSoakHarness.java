@@ -0,0 +1,370 @@
+package br.com.fandrauss.fx.gui;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javafx.application.Platform;
+
+/**
+ * Soak harness that opens and closes a controller thousands of times through
+ * every show mode, measuring the bytes allocated on the FX thread, the heap
+ * retained after GC and the live stages and controllers. A run fails when the
+ * retained heap grows per cycle or closed windows stay reachable
+ *
+ * <pre>
+ * for (WindowSoakHarness.Result result : new WindowSoakHarness().run(MyController::new)) {
+ *     assertFalse(result.toString(), result.isLeaking());
+ * }
+ * </pre>
+ *
+ * The harness only reports, the caller starts the toolkit (headless with
+ * Monocle on CI) and decides what a leak means to the process. See the
+ * example WindowSoakRunner for a command line runner
+ *
+ * @author Fernando Andrauss
+ */
+public final class WindowSoakHarness {
+
+    private static final long CYCLE_TIMEOUT_SECONDS = 30;
+
+    public enum Mode {
+        SHOW, SHOW_MODAL, SHOW_AS_DIALOG, SHOW_UNDECORATED, CREATE_STAGE;
+    }
+
+    private int cycles = 2000;
+    private int sampleEvery = 100;
+    private long toleranceBytesPerCycle = 512;
+    private int maxLiveAfterGc = 2;
+
+    /**
+     * Result of the soak of one controller in one show mode
+     */
+    public static final class Result {
+
+        private final String controller;
+        private final Mode mode;
+        private final int cycles;
+        private final long allocatedBytesPerCycle;
+        private final double retainedBytesPerCycle;
+        private final int liveStages;
+        private final int liveControllers;
+        private final boolean leaking;
+
+        private Result(String controller, Mode mode, int cycles, long allocatedBytesPerCycle, double retainedBytesPerCycle, int liveStages, int liveControllers, boolean leaking) {
+            this.controller = controller;
+            this.mode = mode;
+            this.cycles = cycles;
+            this.allocatedBytesPerCycle = allocatedBytesPerCycle;
+            this.retainedBytesPerCycle = retainedBytesPerCycle;
+            this.liveStages = liveStages;
+            this.liveControllers = liveControllers;
+            this.leaking = leaking;
+        }
+
+        public String getController() {
+            return controller;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public int getCycles() {
+            return cycles;
+        }
+
+        /**
+         * Get the bytes allocated on the FX thread per cycle
+         *
+         * @return bytes or -1 if the JVM does not measure thread allocation
+         */
+        public long getAllocatedBytesPerCycle() {
+            return allocatedBytesPerCycle;
+        }
+
+        /**
+         * Get the growth of the heap retained after GC per cycle, the slope of
+         * the samples
+         *
+         * @return
+         */
+        public double getRetainedBytesPerCycle() {
+            return retainedBytesPerCycle;
+        }
+
+        /**
+         * Get the stages of the closed windows still reachable after GC
+         *
+         * @return
+         */
+        public int getLiveStages() {
+            return liveStages;
+        }
+
+        /**
+         * Get the controllers of the closed windows still reachable after GC
+         *
+         * @return
+         */
+        public int getLiveControllers() {
+            return liveControllers;
+        }
+
+        /**
+         * Check if the retained heap grows per cycle or the closed windows
+         * stay reachable
+         *
+         * @return
+         */
+        public boolean isLeaking() {
+            return leaking;
+        }
+
+        @Override
+        public String toString() {
+            return (leaking ? "LEAK " : "OK   ") + controller + " " + mode + ": " + cycles + " cycles, allocated "
+                    + allocatedBytesPerCycle + " B/cycle, retained " + String.format("%.1f", retainedBytesPerCycle)
+                    + " B/cycle, live stages " + liveStages + ", live controllers " + liveControllers;
+        }
+    }
+
+    /**
+     * Defines the number of open/close cycles of each mode
+     *
+     * @param cycles
+     * @return
+     */
+    public WindowSoakHarness setCycles(int cycles) {
+        this.cycles = cycles;
+        return this;
+    }
+
+    /**
+     * Defines the interval, in cycles, of the retained heap samples. Each
+     * sample forces a full GC
+     *
+     * @param sampleEvery
+     * @return
+     */
+    public WindowSoakHarness setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+        return this;
+    }
+
+    /**
+     * Defines the retained heap growth per cycle tolerated
+     *
+     * @param bytes
+     * @return
+     */
+    public WindowSoakHarness setToleranceBytesPerCycle(long bytes) {
+        this.toleranceBytesPerCycle = bytes;
+        return this;
+    }
+
+    /**
+     * Defines the closed windows tolerated to be reachable after GC, JavaFX
+     * keeps the last focused window for a while
+     *
+     * @param count
+     * @return
+     */
+    public WindowSoakHarness setMaxLiveAfterGc(int count) {
+        this.maxLiveAfterGc = count;
+        return this;
+    }
+
+    /**
+     * Soaks the controller in every show mode. Must not be called on the FX
+     * thread, the toolkit must be started
+     *
+     * @param factory creates a new controller per cycle
+     * @return one result per mode
+     * @throws Exception if a cycle fails
+     */
+    public List<Result> run(Supplier<? extends WindowControllerFx> factory) throws Exception {
+        List<Result> results = new ArrayList<>();
+
+        for (Mode mode : Mode.values()) {
+            results.add(run(factory, mode));
+        }
+
+        return results;
+    }
+
+    /**
+     * Soaks the controller in one show mode. Must not be called on the FX
+     * thread, the toolkit must be started
+     *
+     * @param factory creates a new controller per cycle
+     * @param mode show mode
+     * @return
+     * @throws Exception if a cycle fails
+     */
+    public Result run(Supplier<? extends WindowControllerFx> factory, Mode mode) throws Exception {
+        if (Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("The soak harness can not run on the FX thread");
+        }
+
+        List<WeakReference<Object>> stages = new ArrayList<>();
+        List<WeakReference<Object>> controllers = new ArrayList<>();
+        List<long[]> samples = new ArrayList<>();
+        String name = null;
+
+        long fxThreadId = onFxThread(() -> Thread.currentThread().getId());
+        long allocatedBefore = allocatedBytes(fxThreadId);
+
+        for (int cycle = 1; cycle <= cycles; cycle++) {
+            String controller = cycle(factory, mode, stages, controllers);
+            name = name != null ? name : controller;
+
+            if (cycle % sampleEvery == 0) {
+                samples.add(new long[]{cycle, retainedHeap()});
+                purge(stages);
+                purge(controllers);
+            }
+        }
+
+        long allocatedAfter = allocatedBytes(fxThreadId);
+        long allocatedPerCycle = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / cycles;
+
+        retainedHeap();
+        purge(stages);
+        purge(controllers);
+
+        double slope = slope(samples);
+        boolean leaking = slope > toleranceBytesPerCycle || stages.size() > maxLiveAfterGc || controllers.size() > maxLiveAfterGc;
+
+        return new Result(name, mode, cycles, allocatedPerCycle, slope, stages.size(), controllers.size(), leaking);
+    }
+
+    /**
+     * Opens and closes one controller, letting the pulses run between
+     */
+    private String cycle(Supplier<? extends WindowControllerFx> factory, Mode mode, List<WeakReference<Object>> stages, List<WeakReference<Object>> controllers) throws Exception {
+        WindowControllerFx controller = onFxThread(() -> {
+            WindowControllerFx c = factory.get();
+            open(c, mode);
+            return c;
+        });
+
+        String name = controller.getClass().getName();
+
+        onFxThread(() -> {
+            if (controller.getWindow() != null) {
+                stages.add(new WeakReference<>(controller.getWindow()));
+            }
+            controllers.add(new WeakReference<>(controller));
+            controller.close(null);
+            return null;
+        });
+
+        return name;
+    }
+
+    private static void open(WindowControllerFx controller, Mode mode) {
+        switch (mode) {
+            case SHOW: {
+                controller.show();
+                break;
+            }
+            case SHOW_MODAL: {
+                controller.showModal();
+                break;
+            }
+            case SHOW_AS_DIALOG: {
+                controller.showAsDialg();
+                break;
+            }
+            case SHOW_UNDECORATED: {
+                controller.showUndecorated(true);
+                break;
+            }
+            case CREATE_STAGE: {
+                controller.createStage().show();
+                break;
+            }
+        }
+    }
+
+    private static <T> T onFxThread(Supplier<T> task) throws Exception {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        Platform.runLater(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        return future.get(CYCLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Heap used after a full GC, waits for a sentinel to be collected
+     */
+    private static long retainedHeap() throws InterruptedException {
+        WeakReference<Object> sentinel = new WeakReference<>(new Object());
+
+        for (int i = 0; i < 10 && sentinel.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long allocatedBytes(long threadId) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(threadId);
+            }
+        }
+
+        return -1;
+    }
+
+    private static void purge(List<WeakReference<Object>> references) {
+        for (Iterator<WeakReference<Object>> it = references.iterator(); it.hasNext();) {
+            if (it.next().get() == null) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Least squares slope of the retained heap by cycle, the first sample is
+     * discarded as warmup
+     */
+    private static double slope(List<long[]> samples) {
+        if (samples.size() < 3) {
+            return 0;
+        }
+
+        List<long[]> points = samples.subList(1, samples.size());
+        double meanX = points.stream().mapToLong((p) -> p[0]).average().orElse(0);
+        double meanY = points.stream().mapToLong((p) -> p[1]).average().orElse(0);
+        double numerator = 0;
+        double denominator = 0;
+
+        for (long[] point : points) {
+            numerator += (point[0] - meanX) * (point[1] - meanY);
+            denominator += (point[0] - meanX) * (point[0] - meanX);
+        }
+
+        return denominator == 0 ? 0 : numerator / denominator;
+    }
+
+}
@@ -0,0 +1,266 @@
+package br.com.fandrauss.fx.gui;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javafx.scene.effect.Effect;
+import javafx.scene.image.Image;
+import javafx.stage.Modality;
+import javafx.stage.StageStyle;
+
+/**
+ * Immutable description of a window: where the content comes from and how the
+ * stage must be configured. The content source part is resolved once per
+ * controller class and cached, the stage part is derived from it on each show
+ *
+ * @author Fernando Andrauss
+ * @see WindowControllerFx
+ */
+public final class WindowSpec {
+
+    /**
+     * How the FXML content must be bound to the controller
+     */
+    public enum LoadStrategy {
+        /**
+         * Not known yet, the loader tries the controller factory and falls back
+         * to the controller
+         */
+        UNKNOWN,
+        /**
+         * The FXML declares fx:controller, the controller factory is used
+         */
+        CONTROLLER_FACTORY,
+        /**
+         * The FXML does not declare fx:controller, the controller is set
+         * directly
+         */
+        CONTROLLER;
+    }
+
+    private final URL source;
+    private final LoadStrategy loadStrategy;
+    private final StageStyle style;
+    private final Modality modality;
+    private final List<Image> icons;
+    private final Effect effect;
+    private final boolean transparent;
+    private final double minWidth;
+    private final double minHeight;
+    private final double maxWidth;
+    private final double maxHeight;
+
+    private WindowSpec(Builder builder) {
+        this.source = builder.source;
+        this.loadStrategy = builder.loadStrategy;
+        this.style = builder.style;
+        this.modality = builder.modality;
+        this.icons = Collections.unmodifiableList(new ArrayList<>(builder.icons));
+        this.effect = builder.effect;
+        this.transparent = builder.transparent;
+        this.minWidth = builder.minWidth;
+        this.minHeight = builder.minHeight;
+        this.maxWidth = builder.maxWidth;
+        this.maxHeight = builder.maxHeight;
+    }
+
+    /**
+     * Creates an empty builder
+     *
+     * @return
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder initialized with the values of this spec
+     *
+     * @return
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .source(source)
+                .loadStrategy(loadStrategy)
+                .style(style)
+                .modality(modality)
+                .icons(icons)
+                .effect(effect)
+                .transparent(transparent)
+                .minSize(minWidth, minHeight)
+                .maxSize(maxWidth, maxHeight);
+    }
+
+    /**
+     * Get the resolved FXML location
+     *
+     * @return FXML location or null if the content is coded on getRootPane
+     */
+    public URL getSource() {
+        return source;
+    }
+
+    /**
+     * Get the strategy used to bind the FXML to the controller
+     *
+     * @return
+     */
+    public LoadStrategy getLoadStrategy() {
+        return loadStrategy;
+    }
+
+    /**
+     * Get the stage style
+     *
+     * @return
+     */
+    public StageStyle getStyle() {
+        return style;
+    }
+
+    /**
+     * Get the stage modality
+     *
+     * @return
+     */
+    public Modality getModality() {
+        return modality;
+    }
+
+    /**
+     * Get the stage icons
+     *
+     * @return unmodifiable list of icons
+     */
+    public List<Image> getIcons() {
+        return icons;
+    }
+
+    /**
+     * Get the effect applied on parent when the stage is shown
+     *
+     * @return effect or null if no effect is applied
+     */
+    public Effect getEffect() {
+        return effect;
+    }
+
+    /**
+     * Check if the scene and root pane are transparent
+     *
+     * @return
+     */
+    public boolean isTransparent() {
+        return transparent;
+    }
+
+    /**
+     * Get the stage minimum width
+     *
+     * @return
+     */
+    public double getMinWidth() {
+        return minWidth;
+    }
+
+    /**
+     * Get the stage minimum height
+     *
+     * @return
+     */
+    public double getMinHeight() {
+        return minHeight;
+    }
+
+    /**
+     * Get the stage maximum width
+     *
+     * @return
+     */
+    public double getMaxWidth() {
+        return maxWidth;
+    }
+
+    /**
+     * Get the stage maximum height
+     *
+     * @return
+     */
+    public double getMaxHeight() {
+        return maxHeight;
+    }
+
+    /**
+     * Builder of WindowSpec
+     */
+    public static final class Builder {
+
+        private URL source;
+        private LoadStrategy loadStrategy = LoadStrategy.UNKNOWN;
+        private StageStyle style = StageStyle.DECORATED;
+        private Modality modality = Modality.NONE;
+        private List<Image> icons = Collections.emptyList();
+        private Effect effect;
+        private boolean transparent = false;
+        private double minWidth = 0;
+        private double minHeight = 0;
+        private double maxWidth = Double.MAX_VALUE;
+        private double maxHeight = Double.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        public Builder source(URL source) {
+            this.source = source;
+            return this;
+        }
+
+        public Builder loadStrategy(LoadStrategy loadStrategy) {
+            this.loadStrategy = loadStrategy;
+            return this;
+        }
+
+        public Builder style(StageStyle style) {
+            this.style = style;
+            return this;
+        }
+
+        public Builder modality(Modality modality) {
+            this.modality = modality;
+            return this;
+        }
+
+        public Builder icons(List<Image> icons) {
+            this.icons = icons;
+            return this;
+        }
+
+        public Builder effect(Effect effect) {
+            this.effect = effect;
+            return this;
+        }
+
+        public Builder transparent(boolean transparent) {
+            this.transparent = transparent;
+            return this;
+        }
+
+        public Builder minSize(double width, double height) {
+            this.minWidth = width;
+            this.minHeight = height;
+            return this;
+        }
+
+        public Builder maxSize(double width, double height) {
+            this.maxWidth = width;
+            this.maxHeight = height;
+            return this;
+        }
+
+        public WindowSpec build() {
+            return new WindowSpec(this);
+        }
+    }
+
+}